@@ -1,31 +1,94 @@
 package ch.epfl.javaboy;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 
 import ch.epfl.javaboy.component.Component;
 
 /** Bus
  * Represents a bus and is in charge of
  * the communication between the attached
- * Components
+ * Components.
+ * The address space is divided in pages of
+ * 256 bytes, each page knowing the Components
+ * that can answer on it. The "IO" registers
+ * are dispatched port by port.
+ * The listeners of the writes are told of
+ * every write, whoever makes it
  * @author Toufi
  */
 public final class Bus {
-    private final List<Component> attached = new LinkedList<>();
+
+    /** Number of pages of the address space */
+    public static final int PAGES_COUNT = 1 << Byte.SIZE;
+
+    /**
+     * Returns the page of the given address,
+     * ie. its 8 MSBs
+     * @param address (int) 16 bits address
+     * @return (int) index of the page
+     */
+    public static int pageOf(int address) {
+        return address >>> Byte.SIZE;
+    }
+
+    /**
+     * Tells whether the given page contains at least
+     * one address between startAddress (included)
+     * and endAddress (excluded)
+     * @param page (int) index of the page
+     * @param startAddress (int) 16 bits start address
+     * @param endAddress (int) 16 bits end address
+     * @return (boolean) true if the page and the
+     * interval intersect, false otherwise
+     */
+    public static boolean pageIntersects(int page, int startAddress, int endAddress) {
+        return startAddress < endAddress
+                && pageOf(startAddress) <= page && page <= pageOf(endAddress - 1);
+    }
+
+    private static Component[] append(Component[] components, Component component) {
+        Component[] appended = Arrays.copyOf(components, components.length + 1);
+        appended[components.length] = component;
+        return appended;
+    }
+
+    private final Component[][] pages = new Component[PAGES_COUNT][0];
+    private final Component[][] ports = new Component[AddressMap.REGS_SIZE][0];
+    private IntConsumer[] writeListeners = new IntConsumer[0];
     
     /**
-     * Attaches the given component to the bus
+     * Attaches the given component to the bus,
+     * on every page and port it is mapped on
      * @param component (Component) to attach
      * @throws NullPointerException
      * if the component is null
      */
     public void attach(Component component) {
         Objects.requireNonNull(component);
-        attached.add(component);
+        for (int p = 0 ; p < PAGES_COUNT ; ++p)
+            if (component.isMappedOn(p))
+                pages[p] = append(pages[p], component);
+        for (int p = 0 ; p < AddressMap.REGS_SIZE ; ++p)
+            if (component.isMappedOnPort(AddressMap.REGS_START + p))
+                ports[p] = append(ports[p], component);
     }
     
+    /**
+     * Adds a listener, given the address
+     * of every write made on the bus once
+     * the attached components have received it
+     * @param listener (IntConsumer) listener of the writes
+     * @throws NullPointerException
+     * if the listener is null
+     */
+    public void addWriteListener(IntConsumer listener) {
+        Objects.requireNonNull(listener);
+        writeListeners = Arrays.copyOf(writeListeners, writeListeners.length + 1);
+        writeListeners[writeListeners.length - 1] = listener;
+    }
+
     /**
      * Attemps to read the given address among
      * the attached components, or 0xFF if all
@@ -37,12 +100,56 @@ public final class Bus {
      */
     public int read(int address) {
         Preconditions.checkBits16(address);
-        for (Component c : attached)
-            if (c.read(address) != Component.NO_DATA)
-                return c.read(address);
+        for (Component c : attachedAt(address)) {
+            int value = c.read(address);
+            if (value != Component.NO_DATA)
+                return value;
+        }
         return 0xFF;
     }
     
+    /**
+     * Attempts to copy the values at the length addresses
+     * starting at the given one into destination, all at once.
+     * Only possible when the addresses are on a single page,
+     * outside of the "IO" registers, and when the first
+     * component attached on it answers all of them
+     * (see Component.readBlock())
+     * @param address (int) 16 bits address of the first value
+     * @param destination (byte[]) array to copy into
+     * @param offset (int) index of the first value in destination
+     * @param length (int) number of values to copy
+     * @return (boolean) true if the values have been copied,
+     * false if they must be read one by one with read()
+     * @throws IllegalArgumentException
+     * if address is not valid
+     */
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        Preconditions.checkBits16(address);
+        int last = address + length - 1;
+        if (length <= 0 || pageOf(address) != pageOf(last)
+                || (address < AddressMap.REGS_END && AddressMap.REGS_START <= last))
+            return false;
+
+        Component[] attached = pages[pageOf(address)];
+        return attached.length > 0 && attached[0].readBlock(address, destination, offset, length);
+    }
+
+    /**
+     * Returns the bank answering at the given address,
+     * according to the first component attached on its
+     * page (see Component.bankAt()), or 0 if there is none
+     * @param address (int) 16 bits address
+     * @return (int) index of the bank, or -1 if it is unknown
+     * @throws IllegalArgumentException
+     * if address is not valid
+     */
+    public int bankAt(int address) {
+        Preconditions.checkBits16(address);
+        Component[] attached = pages[pageOf(address)];
+        return attached.length > 0 ? attached[0].bankAt(address) : 0;
+    }
+
     /**
      * Attempts to write the given value at the
      * given address for all the attached components
@@ -55,7 +162,15 @@ public final class Bus {
         Preconditions.checkBits16(address);
         Preconditions.checkBits8(value);
         
-        for (Component c : attached)
+        for (Component c : attachedAt(address))
             c.write(address, value);
+        for (IntConsumer listener : writeListeners)
+            listener.accept(address);
+    }
+
+    private Component[] attachedAt(int address) {
+        if (AddressMap.REGS_START <= address && address < AddressMap.REGS_END)
+            return ports[address - AddressMap.REGS_START];
+        return pages[pageOf(address)];
     }
 }
@@ -29,6 +29,7 @@ public final class GameBoy {
     public static final double CYCLES_PER_NANO_SECOND = (double) CYCLES_PER_SECOND / 1e9;
     
     private final Bus bus;
+    private final Scheduler scheduler;
     private final Cpu cpu;
     private final LcdController lcd;
     private final SoundController soundController;
@@ -77,6 +78,12 @@ public final class GameBoy {
         Ram workRam = new Ram(AddressMap.WORK_RAM_SIZE);
         workRamCtrl = new RamController(workRam, AddressMap.WORK_RAM_START, AddressMap.WORK_RAM_END);
         workRamCtrl.attachTo(bus);
+
+        scheduler = new Scheduler();
+        scheduler.register(timer);
+        scheduler.register(lcd);
+        scheduler.register(soundController);
+        scheduler.register(cpu);
         
         simulatedCycles = 0;
     }
@@ -129,13 +136,8 @@ public final class GameBoy {
     public void runUntil(long cycle) {
         if (cycle < simulatedCycles)
             throw new IllegalArgumentException("Cycle already simulated.");
-        while (simulatedCycles < cycle) {
-            timer.cycle(simulatedCycles);
-            lcd.cycle(simulatedCycles);
-            soundController.cycle(simulatedCycles);
-            cpu.cycle(simulatedCycles);
-            ++simulatedCycles;
-        }
+        scheduler.run(simulatedCycles, cycle);
+        simulatedCycles = cycle;
     }
     
     /**
@@ -0,0 +1,84 @@
+package ch.epfl.javaboy;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import ch.epfl.javaboy.component.Clocked;
+
+/** Scheduler
+ * Runs the registered Clocked components,
+ * jumping directly from one event to the next
+ * instead of running every single cycle
+ * @author Toufi
+ */
+public final class Scheduler {
+    private Clocked[] clocked = new Clocked[0];
+
+    /**
+     * Registers the given component.
+     * Components are run in their order of registration
+     * @param component (Clocked) component to register
+     * @throws NullPointerException
+     * if the component is null
+     */
+    public void register(Clocked component) {
+        Objects.requireNonNull(component);
+        clocked = Arrays.copyOf(clocked, clocked.length + 1);
+        clocked[clocked.length - 1] = component;
+    }
+
+    /**
+     * Runs the registered components from the cycle
+     * start (included) to the cycle end (excluded).
+     * Every component is run on the cycles at which
+     * at least one of them has something to do, the
+     * cycles in between being run in bulk
+     * @param start (long) first cycle to run
+     * @param end (long) limit cycle
+     * @throws IllegalArgumentException
+     * if end is smaller than start
+     */
+    public void run(long start, long end) {
+        Preconditions.checkArgument(start <= end);
+        long cycle = start;
+        while (cycle < end) {
+            for (Clocked c : clocked)
+                c.cycle(cycle);
+
+            long next = end;
+            long othersNext = end;
+            Clocked first = null;
+            boolean waiting = false;
+            for (Clocked c : clocked) {
+                long event = c.nextEventCycle(cycle);
+                if (event < next) {
+                    othersNext = next;
+                    next = event;
+                    first = c;
+                } else {
+                    othersNext = Math.min(othersNext, event);
+                }
+                waiting |= event == Long.MAX_VALUE && c.isWaitingForInterrupt();
+            }
+
+            if (waiting && next > cycle + 1) {
+                // While a component waits for an interruption, nobody notices
+                // the events of the others, which are run in bulk up to the
+                // next cycle at which an interruption may be requested
+                next = end;
+                for (Clocked c : clocked)
+                    next = Math.min(next, c.nextInterruptCycle(cycle));
+            } else if (first != null && next < othersNext) {
+                // The first component to run is alone until the next
+                // event of the others, and may run ahead of them
+                next = first.runAhead(cycle, othersNext);
+            }
+
+            if (next > cycle + 1) {
+                for (Clocked c : clocked)
+                    c.cycleRange(cycle + 1, next);
+            }
+            cycle = Math.max(next, cycle + 1);
+        }
+    }
+}
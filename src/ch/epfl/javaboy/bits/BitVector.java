@@ -290,6 +290,30 @@ public final class BitVector {
             xors[i] = this.bits[i] ^ other.bits[i];
         return new BitVector(xors);
     }
+    /**
+     * Returns the BitVector whose bits are the given
+     * boolean function of the bits of this BitVector
+     * (1st operand) and of the given one (2nd operand)
+     * @param other (BitVector) 2nd vector
+     * @param function (int) truth table of the function :
+     * bit 0 : result for 0 and 0 ;
+     * bit 1 : result for 0 and 1 ;
+     * bit 2 : result for 1 and 0 ;
+     * bit 3 : result for 1 and 1
+     * @return (BitVector) result of the function
+     * @throws IllegalArgumentException
+     * if the two vectors don't have the same size,
+     * or if function is not a valid 4 bits vector
+     */
+    public BitVector combine(BitVector other, int function) {
+        if (this.bits.length != other.bits.length)
+            throw new IllegalArgumentException();
+        Preconditions.checkArgument(0 <= function && function < 1 << 4);
+        int[] results = new int[bits.length];
+        for (int i = 0 ; i < results.length ; ++i)
+            results[i] = Bits.combine(function, this.bits[i], other.bits[i]);
+        return new BitVector(results);
+    }
 
     @Override
     public boolean equals(Object obj) {
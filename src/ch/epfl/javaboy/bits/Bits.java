@@ -205,6 +205,26 @@ public final class Bits {
         return b ^ 0xFF;
     }
     
+    /**
+     * Returns the bits of the given boolean
+     * function of the bits of a and b
+     * @param function (int) truth table of the function :
+     * bit 0 : result for 0 and 0 ;
+     * bit 1 : result for 0 and 1 ;
+     * bit 2 : result for 1 and 0 ;
+     * bit 3 : result for 1 and 1
+     * @param a (int) 1st operand
+     * @param b (int) 2nd operand
+     * @return (int) result of the function
+     * @throws IllegalArgumentException
+     * if function is not a valid 4 bits vector
+     */
+    public static int combine(int function, int a, int b) {
+        Preconditions.checkArgument(0 <= function && function < 1 << 4);
+        return (~a & ~b & -(function & 1)) | (~a & b & -((function >> 1) & 1))
+                | (a & ~b & -((function >> 2) & 1)) | (a & b & -((function >> 3) & 1));
+    }
+
     /**
      * Returns a 16 bits vector constitued
      * of the concatenation of the given 8 bits ones
@@ -13,4 +13,82 @@ public interface Clocked {
      * @param cycle (long) index of the cycle
      */
     void cycle(long cycle);
+
+    /**
+     * Asks the component to run all the cycles
+     * from start (included) to end (excluded).
+     * Equivalent to calling cycle() on each of
+     * them, in order, the cycle preceding start
+     * having just been run.
+     * By default, only the cycles given by
+     * nextEventCycle() are actually run
+     * @param start (long) index of the first cycle
+     * @param end (long) index of the limit cycle
+     */
+    default void cycleRange(long start, long end) {
+        for (long c = nextEventCycle(start - 1) ; c < end ; c = nextEventCycle(c))
+            cycle(c);
+    }
+
+    /**
+     * Returns the index of the next cycle at which
+     * the component has something to do that other
+     * components could notice, knowing that the cycle
+     * of the given index has just been run.
+     * The cycles between the two can be run
+     * with a single call to cycleRange().
+     * By default, the component is run at every cycle
+     * @param cycle (long) index of the last cycle run
+     * @return (long) index of the next cycle to run,
+     * strictly greater than cycle
+     */
+    default long nextEventCycle(long cycle) {
+        return cycle + 1;
+    }
+
+    /**
+     * Asks the component to run, ahead of the others,
+     * its own cycles following the cycle of the given index,
+     * which has just been run by every component, up to
+     * deadline (excluded). The other components have
+     * nothing to do until deadline, and the component
+     * stops as soon as they could notice what it does.
+     * The cycles run ahead are not run again by cycleRange().
+     * By default, nothing is run ahead
+     * @param cycle (long) index of the last cycle run
+     * @param deadline (long) index of the next event
+     * of the other components
+     * @return (long) index of the next cycle to run,
+     * strictly greater than cycle and not greater than deadline
+     */
+    default long runAhead(long cycle, long deadline) {
+        return Math.min(nextEventCycle(cycle), deadline);
+    }
+
+    /**
+     * Returns the index of the next cycle at which
+     * the component may request an interruption,
+     * knowing that the cycle of the given index
+     * has just been run.
+     * By default, it may request one at each of its events
+     * @param cycle (long) index of the last cycle run
+     * @return (long) index of the next cycle at which an
+     * interruption may be requested, strictly greater than cycle
+     */
+    default long nextInterruptCycle(long cycle) {
+        return nextEventCycle(cycle);
+    }
+
+    /**
+     * Returns true if the component is waiting for
+     * an interruption, and does not notice anything
+     * the other components do in the meantime.
+     * Only asked when nextEventCycle() has no event
+     * to return (Long.MAX_VALUE).
+     * By default, the component is never waiting
+     * @return (boolean) true if the component is waiting
+     */
+    default boolean isWaitingForInterrupt() {
+        return false;
+    }
 }
@@ -25,6 +25,68 @@ public interface Component {
      * @param value (int) 8 bits vector
      */
     void write(int address, int value);
+
+    /**
+     * Copies the values at the length addresses
+     * starting at the given one into destination,
+     * if the Component answers all of them from plain
+     * memory, reading it having no side effect.
+     * By default, no block is ever copied
+     * @param address (int) 16 bits address of the first value
+     * @param destination (byte[]) array to copy into
+     * @param offset (int) index of the first value in destination
+     * @param length (int) number of values to copy
+     * @return (boolean) true if the values have been
+     * copied, false if they must be read one by one
+     */
+    default boolean readBlock(int address, byte[] destination, int offset, int length) {
+        return false;
+    }
+
+    /**
+     * Returns the bank of its memory the Component
+     * answers from at the given address, which only
+     * changes when it maps another part of its memory
+     * there (eg. on a write to a MBC register).
+     * By default, the bank is unknown
+     * @param address (int) 16 bits address
+     * @return (int) index of the bank, or -1
+     * if it is unknown
+     */
+    default int bankAt(int address) {
+        return -1;
+    }
+
+    /**
+     * Tells whether the Component may answer
+     * reads or writes at the addresses of the
+     * given page (see Bus.pageOf()). The Bus
+     * never asks a Component about the addresses
+     * of a page it is not mapped on.
+     * By default, a Component is mapped on every page
+     * @param page (int) index of the page
+     * @return (boolean) true if the Component
+     * is mapped on the page, false otherwise
+     */
+    default boolean isMappedOn(int page) {
+        return true;
+    }
+
+    /**
+     * Tells whether the Component may answer
+     * reads or writes at the given address of the
+     * "IO" registers region (see AddressMap.REGS_START
+     * and AddressMap.REGS_END). The Bus only asks
+     * the Components mapped on a port about it.
+     * By default, a Component is mapped on every
+     * port of the pages it is mapped on
+     * @param address (int) 16 bits address of the port
+     * @return (boolean) true if the Component
+     * is mapped on the port, false otherwise
+     */
+    default boolean isMappedOnPort(int address) {
+        return isMappedOn(Bus.pageOf(address));
+    }
     
     /**
      * Attachs the Component to the given
@@ -1,6 +1,7 @@
 package ch.epfl.javaboy.component;
 
 import ch.epfl.javaboy.AddressMap;
+import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.bits.Bits;
 import ch.epfl.javaboy.component.cpu.Cpu;
 import ch.epfl.javaboy.component.cpu.Cpu.Interrupt;
@@ -55,6 +56,16 @@ public final class Joypad implements Component {
         }
     }
 
+    @Override
+    public boolean isMappedOn(int page) {
+        return page == Bus.pageOf(AddressMap.REG_P1);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return address == AddressMap.REG_P1;
+    }
+
     @Override
     public byte[] saveState() {
         byte[] state = new byte[2];
@@ -1,6 +1,7 @@
 package ch.epfl.javaboy.component;
 
 import ch.epfl.javaboy.AddressMap;
+import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.Preconditions;
 import ch.epfl.javaboy.Register;
 import ch.epfl.javaboy.RegisterFile;
@@ -25,12 +26,14 @@ public final class Timer implements Component, Clocked {
     private static final int MAX_MAIN_COUNTER = 0xFFFF;
     private static final int MAX_TIMA = 0xFF;
     private static final int UNITS_BY_CYCLE = 4;
+    private static final long NOT_RUN = Long.MIN_VALUE;
 
     private static final int STATE_LENGTH = Integer.BYTES + RegT.ALL.size();
     
     private final Cpu cpu;
     private final RegisterFile<RegT> regTimer;
     private int mainCounter;
+    private long syncedCycle, lastCycle, overflowCycle;
     
     /**
      * Constructs a new Timer
@@ -42,23 +45,30 @@ public final class Timer implements Component, Clocked {
         this.cpu = cpu;
         regTimer = new RegisterFile<>(RegT.values());
         mainCounter = 0;
+        syncedCycle = lastCycle = NOT_RUN;
+        overflowCycle = Long.MAX_VALUE;
     }
     
     @Override
     public void cycle(long cycle) {
-        boolean previousState = computeState();
-        
-        mainCounter += UNITS_BY_CYCLE;
-        if (mainCounter > MAX_MAIN_COUNTER)
-            mainCounter = 0;
-        
-        boolean currState = computeState();
-        incrementIfFallingEdge(previousState, currState);
+        runUntil(cycle, cycle);
+    }
+
+    @Override
+    public void cycleRange(long start, long end) {
+        if (end > start)
+            runUntil(start, end - 1);
+    }
+
+    @Override
+    public long nextEventCycle(long cycle) {
+        return Math.max(overflowCycle, cycle + 1);
     }
     
     @Override
     public int read(int address) {
         Preconditions.checkBits16(address);
+        synchronize();
         
         if (address == AddressMap.REG_DIV)
             return Bits.extract(mainCounter, Byte.SIZE, Byte.SIZE);
@@ -76,6 +86,7 @@ public final class Timer implements Component, Clocked {
     public void write(int address, int value) {
         Preconditions.checkBits16(address);
         Preconditions.checkBits8(value);
+        synchronize();
 
         if (address == AddressMap.REG_DIV) {
             boolean prev = computeState();
@@ -93,10 +104,22 @@ public final class Timer implements Component, Clocked {
         } else if (address == AddressMap.REG_TMA) {
             regTimer.set(RegT.TMA, value);
         }
+        overflowCycle = computeOverflowCycle();
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        return page == Bus.pageOf(AddressMap.REG_DIV);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return AddressMap.REG_DIV <= address && address <= AddressMap.REG_TAC;
     }
 
     @Override
     public byte[] saveState() {
+        synchronize();
         byte[] state = new byte[STATE_LENGTH];
 
         for (int i = 0 ; i < Integer.BYTES ; ++i)
@@ -119,21 +142,81 @@ public final class Timer implements Component, Clocked {
 
         for (int i = 0 ; i < RegT.ALL.size() ; ++i)
             regTimer.set(RegT.ALL.get(i), Byte.toUnsignedInt(state[Integer.BYTES + i]));
+
+        syncedCycle = lastCycle = NOT_RUN;
+        overflowCycle = Long.MAX_VALUE;
+    }
+
+    /*
+     * The main counter is only brought up to date when it is
+     * read or written, or when TIMA overflows: lastCycle is the
+     * last cycle run, and syncedCycle the last one taken into
+     * account by the main counter
+     */
+    private void runUntil(long first, long last) {
+        if (lastCycle == NOT_RUN) {
+            syncedCycle = first - 1;
+            overflowCycle = computeOverflowCycle();
+        }
+        lastCycle = last;
+        if (lastCycle >= overflowCycle)
+            synchronize();
+    }
+
+    private void synchronize() {
+        if (lastCycle == NOT_RUN || lastCycle == syncedCycle)
+            return;
+        long units = (lastCycle - syncedCycle) * UNITS_BY_CYCLE;
+        if (isEnabled()) {
+            // Each time the main counter reaches a multiple of
+            // the period, the critical bit falls from 1 to 0
+            long period = getPeriod();
+            incrementTima((mainCounter + units) / period - mainCounter / period);
+        }
+        mainCounter = (int) ((mainCounter + units) & MAX_MAIN_COUNTER);
+        syncedCycle = lastCycle;
+        overflowCycle = computeOverflowCycle();
+    }
+
+    private long computeOverflowCycle() {
+        if (!isEnabled() || syncedCycle == NOT_RUN)
+            return Long.MAX_VALUE;
+        long period = getPeriod();
+        long edgesToOverflow = MAX_TIMA + 1 - regTimer.get(RegT.TIMA);
+        long overflowCounter = (mainCounter / period + edgesToOverflow) * period;
+        return syncedCycle + (overflowCounter - mainCounter) / UNITS_BY_CYCLE;
     }
 
     private void incrementIfFallingEdge(boolean previous, boolean current) {
-        if (previous && !current) {
-            int tima = regTimer.get(RegT.TIMA) + 1;
-            if (tima > MAX_TIMA) {
-                tima = regTimer.get(RegT.TMA);
-                cpu.requestInterrupt(Interrupt.TIMER);
+        if (previous && !current)
+            incrementTima(1);
+    }
+
+    private void incrementTima(long increments) {
+        int tima = regTimer.get(RegT.TIMA);
+        while (increments > 0) {
+            int toOverflow = MAX_TIMA + 1 - tima;
+            if (increments < toOverflow) {
+                tima += (int) increments;
+                break;
             }
-            regTimer.set(RegT.TIMA, tima);
+            increments -= toOverflow;
+            tima = regTimer.get(RegT.TMA);
+            cpu.requestInterrupt(Interrupt.TIMER);
         }
+        regTimer.set(RegT.TIMA, tima);
     }
     
     private boolean computeState() {
-        return Bits.test(regTimer.get(RegT.TAC), 2) && Bits.test(mainCounter, getCriticalBit());
+        return isEnabled() && Bits.test(mainCounter, getCriticalBit());
+    }
+
+    private boolean isEnabled() {
+        return Bits.test(regTimer.get(RegT.TAC), 2);
+    }
+
+    private long getPeriod() {
+        return 1L << (getCriticalBit() + 1);
     }
     
     private int getCriticalBit() {
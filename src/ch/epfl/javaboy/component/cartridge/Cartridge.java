@@ -97,6 +97,21 @@ public final class Cartridge implements Component {
         mbc.write(address, value);
     }
 
+    @Override
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        return mbc.readBlock(address, destination, offset, length);
+    }
+
+    @Override
+    public int bankAt(int address) {
+        return mbc.bankAt(address);
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        return mbc.isMappedOn(page);
+    }
+
     @Override
     public byte[] saveState() {
         return mbc.saveState();
@@ -1,5 +1,6 @@
 package ch.epfl.javaboy.component.cartridge;
 
+import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.Preconditions;
 import ch.epfl.javaboy.component.Component;
 import ch.epfl.javaboy.component.memory.Rom;
@@ -37,6 +38,25 @@ final class MBC0 implements Component {
     public void write(int address, int value) {        
     }
 
+    @Override
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        Preconditions.checkBits16(address);
+        if (address + length > MBC0_SIZE)
+            return false;
+        rom.copyTo(address, destination, offset, length);
+        return true;
+    }
+
+    @Override
+    public int bankAt(int address) {
+        return 0;
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        return Bus.pageIntersects(page, 0, MBC0_SIZE);
+    }
+
     @Override
     public byte[] saveState() {
         return new byte[0];
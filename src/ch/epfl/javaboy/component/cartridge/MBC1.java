@@ -10,6 +10,9 @@ import static ch.epfl.javaboy.Preconditions.checkBits8;
 
 final class MBC1 implements Component {
     private static final int RAM_ENABLE = 0xA;
+    private static final int ROM_BANK_BITS = 14, RAM_BANK_BITS = 13;
+    // The disabled RAM, which reads 0xFF, is the bank past the last of the 4 ones
+    private static final int DISABLED_RAM_BANK = 4;
 
     private enum Mode { MODE_0, MODE_1 }
 
@@ -71,6 +74,52 @@ final class MBC1 implements Component {
         }
     }
 
+    @Override
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        int romStart, romEnd;
+        switch (Bits.extract(checkBits16(address), 13, 3)) {
+        case 0: case 1:
+            romStart = romAddress(msb2(), 0, address);
+            romEnd = romAddress(msb2(), 0, address + length - 1) + 1;
+            break;
+        case 2: case 3:
+            romStart = romAddress(ramRom2, romLsb5, address);
+            romEnd = romAddress(ramRom2, romLsb5, address + length - 1) + 1;
+            break;
+        default:
+            return false;
+        }
+        // Only the Rom is copied, as long as the block is contiguous in it
+        if (romEnd - romStart != length)
+            return false;
+        rom.copyTo(romStart, destination, offset, length);
+        return true;
+    }
+
+    @Override
+    public int bankAt(int address) {
+        switch (Bits.extract(checkBits16(address), 13, 3)) {
+        case 0: case 1:
+            return romAddress(msb2(), 0, address) >>> ROM_BANK_BITS;
+        case 2: case 3:
+            return romAddress(ramRom2, romLsb5, address) >>> ROM_BANK_BITS;
+        case 5:
+            return ramEnabled ? ramAddress(address) >>> RAM_BANK_BITS : DISABLED_RAM_BANK;
+        default:
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        switch (Bits.extract(page, 5, 3)) {
+        case 0: case 1: case 2: case 3: case 5:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     @Override
     public byte[] saveState() {
         byte[] state = new byte[ram.size() + 2];
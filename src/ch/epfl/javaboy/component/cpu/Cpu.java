@@ -9,7 +9,10 @@ import ch.epfl.javaboy.component.cpu.Alu.Flag;
 import ch.epfl.javaboy.component.cpu.Alu.RotDir;
 import ch.epfl.javaboy.component.memory.Ram;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 
 /**
  * Represents a Cpu for a GameBoy.
@@ -26,27 +29,86 @@ public final class Cpu implements Component, Clocked {
         VBLANK, LCD_STAT, TIMER, SERIAL, JOYPAD
     }
 
-    private enum Reg implements Register {
-        A, F, B, C, D, E, H, L;
-        public static final List<Reg> ALL = List.of(values());
-    }
+    // Indices of the 8 bits registers in reg8bits
+    private static final int A = 0, F = 1, B = 2, C = 3, D = 4, E = 5, H = 6, L = 7;
+    private static final int REG8_COUNT = 8;
+
     private enum Reg16 implements Register {
         AF, BC, DE, HL
     }
-    private enum RegI implements Register {
-        IE, IF;
-        public static final List<RegI> ALL = List.of(values());
-    }
     private enum FlagSrc implements Bit {
         FALSE, TRUE, ALU, CPU
     }
+    // Memory accessed by an instruction, besides its own bytes
+    private enum Access {
+        NONE, HL, BC, DE, N8, C, N16, STACK
+    }
+
+    // Sources of the flags of the instructions which combine
+    // the flags of the ALU and of the Cpu, see combineAluFlags()
+    private static final int FLAGS_INC = flagsCombination(FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.CPU);
+    private static final int FLAGS_DEC = flagsCombination(FlagSrc.ALU, FlagSrc.TRUE, FlagSrc.ALU, FlagSrc.CPU);
+    private static final int FLAGS_ADD_HL = flagsCombination(FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.ALU);
+    private static final int FLAGS_ADD_SP = flagsCombination(FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.ALU);
+    private static final int FLAGS_CPL = flagsCombination(FlagSrc.CPU, FlagSrc.TRUE, FlagSrc.TRUE, FlagSrc.CPU);
+    private static final int FLAGS_ROT_A = flagsCombination(FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU);
+    private static final int FLAGS_BIT = flagsCombination(FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.TRUE, FlagSrc.CPU);
+    private static final int FLAGS_SET_C = flagsCombination(FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.TRUE);
+    private static final int FLAGS_RESET_C = flagsCombination(FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.FALSE);
+
+    /**
+     * Operation of an instruction, its operands
+     * being already decoded from its opcode
+     */
+    @FunctionalInterface
+    private interface Operation {
+        /**
+         * Executes the operation on the given Cpu
+         * @param cpu (Cpu) Cpu to execute the operation on
+         * @param nextPC (int) address of the following instruction
+         * @return (int) address of the next instruction to execute
+         */
+        int execute(Cpu cpu, int nextPC);
+    }
+
+    /**
+     * Decoded instruction, ready to be executed
+     */
+    private static final class Instruction {
+        private final int totalBytes, cycles;
+        private final Operation operation;
+        private final Access access;
+
+        private Instruction(Opcode opcode) {
+            totalBytes = opcode.totalBytes;
+            cycles = opcode.cycles;
+            operation = operationOf(opcode);
+            access = accessOf(opcode);
+        }
+    }
+
+    /**
+     * Instruction decoded at a given address,
+     * with its immediate operand
+     */
+    private static final class Decoded {
+        private final Instruction instruction;
+        private final int immediate;
+        private final int generation;
+
+        private Decoded(Instruction instruction, int immediate, int generation) {
+            this.instruction = instruction;
+            this.immediate = immediate;
+            this.generation = generation;
+        }
+    }
 
-    private static final Opcode[] DIRECT_OPCODE_TABLE =
-            buildOpcodeTable(Opcode.Kind.DIRECT);
+    private static final Instruction[] DIRECT_INSTRUCTION_TABLE =
+            buildInstructionTable(Opcode.Kind.DIRECT);
 
-    private static final Opcode[] PREFIXED_OPCODE_TABLE =
-            buildOpcodeTable(Opcode.Kind.PREFIXED);
-    private static final int STATE_LENGTH = Reg.ALL.size() + RegI.ALL.size() +
+    private static final Instruction[] PREFIXED_INSTRUCTION_TABLE =
+            buildInstructionTable(Opcode.Kind.PREFIXED);
+    private static final int STATE_LENGTH = REG8_COUNT + 2 +
             AddressMap.HIGH_RAM_SIZE + Long.BYTES + 5;
     private static final int REG8_CODE_SIZE = 3;
     private static final int REG16_CODE_START = 4;
@@ -54,16 +116,22 @@ public final class Cpu implements Component, Clocked {
     private static final int INDEX_INCREM_HL = 4;
     private static final int OPCODE_PREFIX = 0xCB;
     private static final int INTERRUPTION_MANAGEMENT_DURATION = 5;
+    private static final int MAX_INSTRUCTION_BYTES = 3;
+    private static final int SWITCHABLE_ROM_START = 0x4000;
+    private static final Interrupt[] ALL_INTERRUPTS = Interrupt.values();
+    private static final int IDLE_LOOP_MAX_BYTES = 16;
+    private static final int IDLE_LOOP_MAX_READS = 8;
 
-    private static Opcode[] buildOpcodeTable(Opcode.Kind kind) {
-        Opcode[] tab = new Opcode[Opcode.values().length];
+    private static Instruction[] buildInstructionTable(Opcode.Kind kind) {
+        Instruction[] tab = new Instruction[1 << Byte.SIZE];
         for (Opcode oc : Opcode.values())
             if (oc.kind == kind)
-                tab[oc.encoding] = oc;
+                tab[oc.encoding] = new Instruction(oc);
         return tab;
     }
-    private final RegisterFile<Reg> reg8bits;
-    private final RegisterFile<RegI> interruptionReg;
+    private final int[] reg8bits;
+    private int regIE, regIF;
+    private int pendingInterrupts;
     private long nextNonIdleCycle;
     private int PC;
     private int SP;
@@ -71,6 +139,22 @@ public final class Cpu implements Component, Clocked {
     private boolean isHalted;
     private Bus bus;
     private Ram highRam;
+    private final Decoded[] decodedCache;
+    // Decoded instructions of the switchable half of the cartridge ROM, by bank
+    private final Map<Integer, Decoded[]> bankCaches;
+    private Decoded[] switchableCache;
+    private int fixedRomBank, switchableRomBank, cartridgeRamBank;
+    private int cacheGeneration;
+    private int immediate;
+
+    private final int[] loopRegs;
+    private final int[] loopReadAddresses, loopReadValues;
+    private int loopReadCount;
+    private int loopPC, loopSP;
+    private boolean loopIME;
+    private long loopStartCycle;
+    private boolean loopIsIdle;
+    private long idleLoopPeriod;
     
     /**
      * Constructs a new Cpu
@@ -82,32 +166,91 @@ public final class Cpu implements Component, Clocked {
         IME = false;
         isHalted = false;
 
-        reg8bits = new RegisterFile<>(Reg.values());
-        interruptionReg = new RegisterFile<>(RegI.values());
+        reg8bits = new int[REG8_COUNT];
+        regIE = 0;
+        regIF = 0;
+        pendingInterrupts = 0;
         bus = null;
         highRam = new Ram(AddressMap.HIGH_RAM_SIZE);
+        decodedCache = new Decoded[1 << (2 * Byte.SIZE)];
+        bankCaches = new HashMap<>();
+        switchableCache = null;
+        cacheGeneration = 0;
+        immediate = 0;
+
+        loopRegs = new int[REG8_COUNT];
+        loopReadAddresses = new int[IDLE_LOOP_MAX_READS];
+        loopReadValues = new int[IDLE_LOOP_MAX_READS];
+        forgetLoop();
     }
 
     @Override
     public void cycle(long cycle) {
-        int interrupt = getLowestInterrupt();
-        
-        if (isHalted && interrupt != -1) {
+        if (isHalted && pendingInterrupts != 0) {
             nextNonIdleCycle = cycle;
             isHalted = false;
+            forgetLoop();
         }
 
-        if (cycle < nextNonIdleCycle || isHalted)
+        if (cycle < nextNonIdleCycle || isHalted) {
+            // Another component has run and may have changed
+            // the values read by an idle loop
+            idleLoopPeriod = 0;
             return;
+        }
         
-        if (IME && interrupt != -1) {
-            manageInterruption(Interrupt.values()[interrupt]);
+        if (IME && pendingInterrupts != 0) {
+            manageInterruption(ALL_INTERRUPTS[Integer.numberOfTrailingZeros(pendingInterrupts)]);
         } else {
-            int encoding = read8(PC);
-            Opcode opcode = encoding == OPCODE_PREFIX ? PREFIXED_OPCODE_TABLE[read8AfterOpcode()] : DIRECT_OPCODE_TABLE[encoding];
+            execute(decodeAt(PC));
+        }
+    }
+
+    @Override
+    public void cycleRange(long start, long end) {
+        if (!isInIdleLoop())
+            return;
+        // Until the next event of another component, every iteration
+        // reads the same values as the last one and has the same effect
+        long iterations = Math.max(end - nextNonIdleCycle, 0) / idleLoopPeriod;
+        nextNonIdleCycle += iterations * idleLoopPeriod;
+        loopStartCycle = nextNonIdleCycle;
+        while (nextNonIdleCycle < end)
+            execute(decodeAt(PC));
+        idleLoopPeriod = 0;
+    }
 
-            dispatch(opcode);
+    @Override
+    public long nextEventCycle(long cycle) {
+        if (isHalted)
+            return pendingInterrupts != 0 ? cycle + 1 : Long.MAX_VALUE;
+        if (isInIdleLoop())
+            return Long.MAX_VALUE;
+        return Math.max(nextNonIdleCycle, cycle + 1);
+    }
+    
+    /*
+     * Executes the following instructions back-to-back, as long as they
+     * do not touch the registers of the other components: until the
+     * deadline, they see nothing of what the others do, and the others
+     * see nothing of what they do
+     */
+    @Override
+    public long runAhead(long cycle, long deadline) {
+        while (nextNonIdleCycle < deadline && !isHalted
+                && !(IME && pendingInterrupts != 0) && !isInIdleLoop()
+                && !isIoReg(PC)) {
+            Decoded decoded = decodeAt(PC);
+            if (touchesIoRegs(decoded))
+                break;
+            execute(decoded);
         }
+        return Math.min(nextEventCycle(cycle), deadline);
+    }
+
+    @Override
+    public boolean isWaitingForInterrupt() {
+        return isHalted && pendingInterrupts == 0;
     }
     
     @Override
@@ -115,9 +258,9 @@ public final class Cpu implements Component, Clocked {
         Preconditions.checkBits16(address);
 
         if (address == AddressMap.REG_IE)
-            return interruptionReg.get(RegI.IE);
+            return regIE;
         else if (address == AddressMap.REG_IF)
-            return interruptionReg.get(RegI.IF);
+            return regIF;
         else if (address >= AddressMap.HIGH_RAM_START
                 && address < AddressMap.HIGH_RAM_END)
             return highRam.read(address - AddressMap.HIGH_RAM_START);
@@ -131,17 +274,32 @@ public final class Cpu implements Component, Clocked {
         Preconditions.checkBits8(value);
 
         if (address == AddressMap.REG_IE)
-            interruptionReg.set(RegI.IE, value);
+            setInterruptRegs(value, regIF);
         else if (address == AddressMap.REG_IF)
-            interruptionReg.set(RegI.IF, value);
+            setInterruptRegs(regIE, value);
         else if (AddressMap.HIGH_RAM_START <= address
                 && address < AddressMap.HIGH_RAM_END)
             highRam.write(address - AddressMap.HIGH_RAM_START, value);
     }
 
+    @Override
+    public boolean isMappedOn(int page) {
+        return page == Bus.pageOf(AddressMap.REG_IE)
+                || page == Bus.pageOf(AddressMap.REG_IF)
+                || Bus.pageIntersects(page, AddressMap.HIGH_RAM_START, AddressMap.HIGH_RAM_END);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return address == AddressMap.REG_IF;
+    }
+
     @Override
     public void attachTo(Bus bus) {
+        if (this.bus != bus)
+            bus.addWriteListener(this::invalidateDecoded);
         this.bus = bus;
+        switchableCache = null;
         Component.super.attachTo(bus);
     }
 
@@ -166,12 +324,12 @@ public final class Cpu implements Component, Clocked {
         System.arraycopy(highRam.getData(), 0, state, baseIndex, highRam.size());
         baseIndex += highRam.size();
 
-        for (int i = 0 ; i < Reg.ALL.size() ; ++i)
-            state[baseIndex + i] = (byte) reg8bits.get(Reg.ALL.get(i));
-        baseIndex += Reg.ALL.size();
+        for (int i = 0 ; i < REG8_COUNT ; ++i)
+            state[baseIndex + i] = (byte) reg8bits[i];
+        baseIndex += REG8_COUNT;
 
-        for (int i = 0 ; i < RegI.ALL.size() ; ++i)
-            state[baseIndex + i] = (byte) interruptionReg.get(RegI.ALL.get(i));
+        state[baseIndex] = (byte) regIE;
+        state[baseIndex + 1] = (byte) regIF;
 
         return state;
     }
@@ -196,12 +354,16 @@ public final class Cpu implements Component, Clocked {
         System.arraycopy(state, baseIndex, highRam.getData(), 0, highRam.size());
         baseIndex += highRam.size();
 
-        for (int i = 0 ; i < Reg.ALL.size() ; ++i)
-            reg8bits.set(Reg.ALL.get(i), Byte.toUnsignedInt(state[baseIndex + i]));
-        baseIndex += Reg.ALL.size();
+        for (int i = 0 ; i < REG8_COUNT ; ++i)
+            reg8bits[i] = Byte.toUnsignedInt(state[baseIndex + i]);
+        baseIndex += REG8_COUNT;
+
+        setInterruptRegs(Byte.toUnsignedInt(state[baseIndex]),
+                Byte.toUnsignedInt(state[baseIndex + 1]));
 
-        for (int i = 0 ; i < RegI.ALL.size() ; ++i)
-            interruptionReg.set(RegI.ALL.get(i), Byte.toUnsignedInt(state[baseIndex + i]));
+        ++cacheGeneration;
+        switchableCache = null;
+        forgetLoop();
     }
 
     /**
@@ -210,424 +372,853 @@ public final class Cpu implements Component, Clocked {
      * @param i (Interrupt) interruption to raise
      */
     public void requestInterrupt(Interrupt i) {
-        interruptionReg.setBit(RegI.IF, i, true);
+        setInterruptRegs(regIE, Bits.set(regIF, i.index(), true));
+    }
+
+    private void setInterruptRegs(int ie, int iF) {
+        regIE = ie;
+        regIF = iF;
+        pendingInterrupts = ie & iF;
     }
 
     private void manageInterruption(Interrupt toManage) {
             IME = false;
-            interruptionReg.setBit(RegI.IF, toManage, false);
+            setInterruptRegs(regIE, Bits.set(regIF, toManage.index(), false));
 
             push16(PC);
             PC = AddressMap.INTERRUPTS[toManage.index()];
 
             nextNonIdleCycle += INTERRUPTION_MANAGEMENT_DURATION;
+            forgetLoop();
+    }
+
+    private void execute(Decoded decoded) {
+        Instruction instruction = decoded.instruction;
+        immediate = decoded.immediate;
+        int previousPC = PC;
+        int nextPC = Bits.clip(2 * Byte.SIZE, PC + instruction.totalBytes);
+        idleLoopPeriod = 0;
+        PC = instruction.operation.execute(this, nextPC);
+        nextNonIdleCycle += instruction.cycles;
+        if (PC <= previousPC && previousPC - PC < IDLE_LOOP_MAX_BYTES)
+            detectIdleLoop();
+    }
+
+    /*
+     * A short loop iteration which writes nothing, leaves the registers
+     * as they were, and whose reads would still return the same values
+     * is repeated identically as long as no other component changes
+     * what it reads, ie. until the next event of another component
+     * (DIV and TIMA, which change in between, are never considered).
+     * The following iterations are then run in bulk by cycleRange()
+     */
+    private void detectIdleLoop() {
+        if (loopIsIdle && PC == loopPC && SP == loopSP && IME == loopIME
+                && Arrays.equals(reg8bits, loopRegs) && loopReadsAreUnchanged()) {
+            idleLoopPeriod = nextNonIdleCycle - loopStartCycle;
+        } else {
+            loopPC = PC;
+            loopSP = SP;
+            loopIME = IME;
+            System.arraycopy(reg8bits, 0, loopRegs, 0, REG8_COUNT);
+        }
+        loopStartCycle = nextNonIdleCycle;
+        loopIsIdle = true;
+        loopReadCount = 0;
+    }
+
+    private void recordLoopRead(int address, int value) {
+        if (loopReadCount == IDLE_LOOP_MAX_READS
+                || address == AddressMap.REG_DIV || address == AddressMap.REG_TIMA) {
+            loopIsIdle = false;
+        } else {
+            loopReadAddresses[loopReadCount] = address;
+            loopReadValues[loopReadCount] = value;
+            ++loopReadCount;
+        }
+    }
+
+    private boolean loopReadsAreUnchanged() {
+        for (int i = 0 ; i < loopReadCount ; ++i)
+            if (bus.read(loopReadAddresses[i]) != loopReadValues[i])
+                return false;
+        return true;
+    }
+
+    private boolean isInIdleLoop() {
+        return idleLoopPeriod > 0 && !(IME && pendingInterrupts != 0);
+    }
+
+    private void forgetLoop() {
+        loopPC = -1;
+        loopIsIdle = false;
+        loopReadCount = 0;
+        idleLoopPeriod = 0;
+    }
+
+    /*
+     * Instructions in the cartridge, the work RAM and the high RAM
+     * are decoded once and kept until something writes over them
+     * through the bus (the Cpu or anyone else, see attachTo()).
+     * Those of the switchable half of the cartridge ROM are kept
+     * by bank, so that a write to the MBC which only switches that
+     * bank selects other ones. A write which changes the fixed half,
+     * the cartridge RAM or an unknown bank (see Component.bankAt()),
+     * or a write to the boot ROM register, discards every decoded
+     * instruction
+     */
+    private Decoded decodeAt(int address) {
+        if (!isCacheable(address))
+            return decodeFromBus(address);
+
+        Decoded[] cache = decodedCache;
+        int index = address;
+        if (isSwitchableRom(address)) {
+            if (switchableCache == null)
+                mapBanks();
+            cache = switchableCache;
+            index = address - SWITCHABLE_ROM_START;
+        }
+        Decoded decoded = cache[index];
+        if (decoded == null || decoded.generation != cacheGeneration) {
+            decoded = decodeFromBus(address);
+            cache[index] = decoded;
+        }
+        return decoded;
+    }
+
+    private Decoded decodeFromBus(int address) {
+        int next = Bits.clip(2 * Byte.SIZE, address + 1);
+        int encoding = read8(address);
+        Instruction instruction = encoding == OPCODE_PREFIX ?
+                PREFIXED_INSTRUCTION_TABLE[read8(next)] : DIRECT_INSTRUCTION_TABLE[encoding];
+
+        int immediate = 0;
+        if (instruction.totalBytes == 2)
+            immediate = read8(next);
+        else if (instruction.totalBytes == 3)
+            immediate = read16(next);
+        return new Decoded(instruction, immediate, cacheGeneration);
+    }
+
+    private static boolean isCacheable(int address) {
+        return address < AddressMap.CARTRIDGE_ROM_END
+                || (AddressMap.CARTRIDGE_RAM_START <= address && address < AddressMap.WORK_RAM_END)
+                || (AddressMap.HIGH_RAM_START <= address && address < AddressMap.HIGH_RAM_END);
+    }
+
+    private static boolean isSwitchableRom(int address) {
+        return SWITCHABLE_ROM_START <= address && address < AddressMap.CARTRIDGE_ROM_END;
+    }
+
+    private void invalidateDecoded(int address) {
+        if (address < AddressMap.CARTRIDGE_ROM_END)
+            mapBanks();
+        else if (address == AddressMap.REG_BOOT_ROM_DISABLE)
+            ++cacheGeneration;
+        for (int i = 0 ; i < MAX_INSTRUCTION_BYTES ; ++i)
+            forgetDecoded(Bits.clip(2 * Byte.SIZE, address - i));
+    }
+
+    private void forgetDecoded(int address) {
+        if (!isSwitchableRom(address))
+            decodedCache[address] = null;
+        else if (switchableCache != null)
+            switchableCache[address - SWITCHABLE_ROM_START] = null;
+    }
+
+    private void mapBanks() {
+        int fixedBank = bus.bankAt(AddressMap.CARTRIDGE_ROM_START);
+        int switchableBank = bus.bankAt(SWITCHABLE_ROM_START);
+        int ramBank = bus.bankAt(AddressMap.CARTRIDGE_RAM_START);
+        if (fixedBank < 0 || switchableBank < 0 || ramBank < 0
+                || fixedBank != fixedRomBank || ramBank != cartridgeRamBank)
+            ++cacheGeneration;
+        if (switchableCache == null || switchableBank != switchableRomBank) {
+            switchableCache = bankCaches.computeIfAbsent(switchableBank,
+                    b -> new Decoded[AddressMap.CARTRIDGE_ROM_END - SWITCHABLE_ROM_START]);
+            // The last instructions of the fixed half may have operands in the switchable one
+            for (int i = 1 ; i < MAX_INSTRUCTION_BYTES ; ++i)
+                decodedCache[SWITCHABLE_ROM_START - i] = null;
+        }
+        fixedRomBank = fixedBank;
+        switchableRomBank = switchableBank;
+        cartridgeRamBank = ramBank;
+    }
+
+    private boolean touchesIoRegs(Decoded decoded) {
+        switch (decoded.instruction.access) {
+        case NONE:
+            return false;
+        case HL:
+            return isIoReg(getReg16(Reg16.HL));
+        case BC:
+            return isIoReg(getReg16(Reg16.BC));
+        case DE:
+            return isIoReg(getReg16(Reg16.DE));
+        case N8:
+            return isIoReg(AddressMap.REGS_START + decoded.immediate);
+        case C:
+            return isIoReg(AddressMap.REGS_START + reg8bits[C]);
+        case N16:
+            return isIoReg(decoded.immediate)
+                    || isIoReg(Bits.clip(2 * Byte.SIZE, decoded.immediate + 1));
+        case STACK:
+            for (int offset = -2 ; offset < 2 ; ++offset)
+                if (isIoReg(Bits.clip(2 * Byte.SIZE, SP + offset)))
+                    return true;
+            return false;
+        default:
+            throw new Error();
+        }
     }
 
-    private void dispatch(Opcode opcode) {
-        int nextPC = Bits.clip(2 * Byte.SIZE, PC + opcode.totalBytes);
+    private static boolean isIoReg(int address) {
+        return AddressMap.REGS_START <= address && address < AddressMap.REGS_END;
+    }
+
+    private static Access accessOf(Opcode opcode) {
+        switch (opcode.family) {
+        case LD_R8_HLR: case LD_A_HLRU: case LD_HLR_R8: case LD_HLRU_A: case LD_HLR_N8:
+        case ADD_A_HLR: case INC_HLR: case SUB_A_HLR: case DEC_HLR: case CP_A_HLR:
+        case AND_A_HLR: case OR_A_HLR: case XOR_A_HLR:
+        case ROTC_HLR: case ROT_HLR: case SWAP_HLR: case SLA_HLR: case SRA_HLR: case SRL_HLR:
+        case BIT_U3_HLR: case CHG_U3_HLR:
+            return Access.HL;
+        case LD_A_BCR: case LD_BCR_A:
+            return Access.BC;
+        case LD_A_DER: case LD_DER_A:
+            return Access.DE;
+        case LD_A_N8R: case LD_N8R_A:
+            return Access.N8;
+        case LD_A_CR: case LD_CR_A:
+            return Access.C;
+        case LD_A_N16R: case LD_N16R_A: case LD_N16R_SP:
+            return Access.N16;
+        case POP_R16: case PUSH_R16: case CALL_N16: case CALL_CC_N16:
+        case RST_U3: case RET: case RET_CC: case RETI:
+            return Access.STACK;
+        default:
+            return Access.NONE;
+        }
+    }
+
+    private static Operation operationOf(Opcode opcode) {
+        final int additionalCycles = opcode.additionalCycles;
 
         switch (opcode.family) {
         // No operations :
         case NOP:
-            break;
+            return (cpu, nextPC) -> nextPC;
             // Load instructions :
         case LD_R8_HLR: {
-            reg8bits.set(extractReg(opcode, 3), read8AtHL());
-        } break;
+            int r = extractReg(opcode, 3);
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[r] = cpu.read8AtHL();
+                return nextPC;
+            };
+        }
         case LD_A_HLRU: {
-            reg8bits.set(Reg.A, read8AtHL());
-            setReg16(Reg16.HL, Bits.clip(Byte.SIZE * 2, getReg16(Reg16.HL) + extractHLIncrement(opcode)));
-        } break;
-        case LD_A_N8R: {
-            reg8bits.set(Reg.A, read8(AddressMap.REGS_START + read8AfterOpcode()));
-        } break;
-        case LD_A_CR: {
-            reg8bits.set(Reg.A, read8(AddressMap.REGS_START + reg8bits.get(Reg.C)));
-        } break;
-        case LD_A_N16R: {
-            reg8bits.set(Reg.A, read8(read16AfterOpcode()));
-        } break;
-        case LD_A_BCR: {
-            reg8bits.set(Reg.A, read8(getReg16(Reg16.BC)));
-        } break;
-        case LD_A_DER: {
-            reg8bits.set(Reg.A, read8(getReg16(Reg16.DE)));
-        } break;
+            int increment = extractHLIncrement(opcode);
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = cpu.read8AtHL();
+                cpu.setReg16(Reg16.HL, Bits.clip(Byte.SIZE * 2, cpu.getReg16(Reg16.HL) + increment));
+                return nextPC;
+            };
+        }
+        case LD_A_N8R:
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = cpu.read8(AddressMap.REGS_START + cpu.immediate8());
+                return nextPC;
+            };
+        case LD_A_CR:
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = cpu.read8(AddressMap.REGS_START + cpu.reg8bits[C]);
+                return nextPC;
+            };
+        case LD_A_N16R:
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = cpu.read8(cpu.immediate16());
+                return nextPC;
+            };
+        case LD_A_BCR:
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = cpu.read8(cpu.getReg16(Reg16.BC));
+                return nextPC;
+            };
+        case LD_A_DER:
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = cpu.read8(cpu.getReg16(Reg16.DE));
+                return nextPC;
+            };
         case LD_R8_N8: {
-            reg8bits.set(extractReg(opcode, 3), read8AfterOpcode());
-        } break;
+            int r = extractReg(opcode, 3);
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[r] = cpu.immediate8();
+                return nextPC;
+            };
+        }
         case LD_R16SP_N16: {
-            setReg16SP(extractReg16(opcode), read16AfterOpcode());
-        } break;
+            Reg16 r = extractReg16(opcode);
+            return (cpu, nextPC) -> {
+                cpu.setReg16SP(r, cpu.immediate16());
+                return nextPC;
+            };
+        }
         case POP_R16: {
-            setReg16(extractReg16(opcode), pop16());
-        } break;
+            Reg16 r = extractReg16(opcode);
+            return (cpu, nextPC) -> {
+                cpu.setReg16(r, cpu.pop16());
+                return nextPC;
+            };
+        }
         // Store instructions :
         case LD_HLR_R8: {
-            write8AtHL(reg8bits.get(extractReg(opcode, 0)));
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.write8AtHL(cpu.reg8bits[r]);
+                return nextPC;
+            };
+        }
         case LD_HLRU_A: {
-            write8AtHL(reg8bits.get(Reg.A));
-            setReg16(Reg16.HL, Bits.clip(Byte.SIZE * 2, getReg16(Reg16.HL) + extractHLIncrement(opcode)));
-        } break;
-        case LD_N8R_A: {
-            write8(AddressMap.REGS_START + read8AfterOpcode(), reg8bits.get(Reg.A));
-        } break;
-        case LD_CR_A: {
-            write8(AddressMap.REGS_START + reg8bits.get(Reg.C), reg8bits.get(Reg.A));
-        } break;
-        case LD_N16R_A: {
-            write8(read16AfterOpcode(), reg8bits.get(Reg.A));
-        } break;
-        case LD_BCR_A: {
-            write8(getReg16(Reg16.BC), reg8bits.get(Reg.A));
-        } break;
-        case LD_DER_A: {
-            write8(getReg16(Reg16.DE), reg8bits.get(Reg.A));
-        } break;
-        case LD_HLR_N8: {
-            write8(getReg16(Reg16.HL), read8AfterOpcode());
-        } break;
-        case LD_N16R_SP: {
-            write16(read16AfterOpcode(), SP);
-        } break;
+            int increment = extractHLIncrement(opcode);
+            return (cpu, nextPC) -> {
+                cpu.write8AtHL(cpu.reg8bits[A]);
+                cpu.setReg16(Reg16.HL, Bits.clip(Byte.SIZE * 2, cpu.getReg16(Reg16.HL) + increment));
+                return nextPC;
+            };
+        }
+        case LD_N8R_A:
+            return (cpu, nextPC) -> {
+                cpu.write8(AddressMap.REGS_START + cpu.immediate8(), cpu.reg8bits[A]);
+                return nextPC;
+            };
+        case LD_CR_A:
+            return (cpu, nextPC) -> {
+                cpu.write8(AddressMap.REGS_START + cpu.reg8bits[C], cpu.reg8bits[A]);
+                return nextPC;
+            };
+        case LD_N16R_A:
+            return (cpu, nextPC) -> {
+                cpu.write8(cpu.immediate16(), cpu.reg8bits[A]);
+                return nextPC;
+            };
+        case LD_BCR_A:
+            return (cpu, nextPC) -> {
+                cpu.write8(cpu.getReg16(Reg16.BC), cpu.reg8bits[A]);
+                return nextPC;
+            };
+        case LD_DER_A:
+            return (cpu, nextPC) -> {
+                cpu.write8(cpu.getReg16(Reg16.DE), cpu.reg8bits[A]);
+                return nextPC;
+            };
+        case LD_HLR_N8:
+            return (cpu, nextPC) -> {
+                cpu.write8(cpu.getReg16(Reg16.HL), cpu.immediate8());
+                return nextPC;
+            };
+        case LD_N16R_SP:
+            return (cpu, nextPC) -> {
+                cpu.write16(cpu.immediate16(), cpu.SP);
+                return nextPC;
+            };
         case PUSH_R16: {
-            push16(getReg16(extractReg16(opcode)));
-        } break;
+            Reg16 r = extractReg16(opcode);
+            return (cpu, nextPC) -> {
+                cpu.push16(cpu.getReg16(r));
+                return nextPC;
+            };
+        }
         // Move Instructions :
         case LD_R8_R8: {
-            Reg r1 = extractReg(opcode, 3);
-            Reg r2 = extractReg(opcode, 0);
-            reg8bits.set(r1, reg8bits.get(r2));
-        } break;
-        case LD_SP_HL: {
-            SP = getReg16(Reg16.HL);
-        } break;
+            int r1 = extractReg(opcode, 3);
+            int r2 = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[r1] = cpu.reg8bits[r2];
+                return nextPC;
+            };
+        }
+        case LD_SP_HL:
+            return (cpu, nextPC) -> {
+                cpu.SP = cpu.getReg16(Reg16.HL);
+                return nextPC;
+            };
 
         // Add Instructions :
         case ADD_A_N8: {
-            int right = read8AfterOpcode();
-            boolean carry = extractCarryFromOpcodeAndFlags(opcode);
-            setRegAndFlags(Reg.A, Alu.add(reg8bits.get(Reg.A), right, carry));
-        } break;
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                int right = cpu.immediate8();
+                boolean carry = cpu.carryIf(withCarry);
+                cpu.setRegAndFlags(A, Alu.add(cpu.reg8bits[A], right, carry));
+                return nextPC;
+            };
+        }
         case ADD_A_R8: {
-            int right = reg8bits.get(extractReg(opcode, 0));
-            boolean carry = extractCarryFromOpcodeAndFlags(opcode);
-            setRegAndFlags(Reg.A, Alu.add(reg8bits.get(Reg.A), right, carry));
-        } break;
+            int r = extractReg(opcode, 0);
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                int right = cpu.reg8bits[r];
+                boolean carry = cpu.carryIf(withCarry);
+                cpu.setRegAndFlags(A, Alu.add(cpu.reg8bits[A], right, carry));
+                return nextPC;
+            };
+        }
         case ADD_A_HLR: {
-            int right = read8(getReg16(Reg16.HL));
-            boolean carry = extractCarryFromOpcodeAndFlags(opcode);
-            setRegAndFlags(Reg.A, Alu.add(reg8bits.get(Reg.A), right, carry));
-        } break;
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                int right = cpu.read8AtHL();
+                boolean carry = cpu.carryIf(withCarry);
+                cpu.setRegAndFlags(A, Alu.add(cpu.reg8bits[A], right, carry));
+                return nextPC;
+            };
+        }
         case INC_R8: {
-            Reg r = extractReg(opcode, 3);
-            int res = Alu.add(reg8bits.get(r), 1);
-            setRegFromAlu(r, res);
-            combineAluFlags(res, FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.CPU);
-        } break;
-        case INC_HLR: {
-            int res = Alu.add(read8AtHL(), 1);
-            write8AtHL(Bits.extract(res, Byte.SIZE, Byte.SIZE));
-            combineAluFlags(res,  FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.CPU);
-        } break;
+            int r = extractReg(opcode, 3);
+            return (cpu, nextPC) -> {
+                int res = Alu.add(cpu.reg8bits[r], 1);
+                cpu.setRegFromAlu(r, res);
+                cpu.combineAluFlags(res, FLAGS_INC);
+                return nextPC;
+            };
+        }
+        case INC_HLR:
+            return (cpu, nextPC) -> {
+                int res = Alu.add(cpu.read8AtHL(), 1);
+                cpu.write8AtHL(Bits.extract(res, Byte.SIZE, Byte.SIZE));
+                cpu.combineAluFlags(res, FLAGS_INC);
+                return nextPC;
+            };
         case ADD_HL_R16SP: {
             Reg16 r = extractReg16(opcode);
-            int res = Alu.add16H(getReg16(Reg16.HL), getReg16SP(r));
-            setReg16(Reg16.HL, Bits.extract(res, Byte.SIZE, Byte.SIZE * 2));
-            combineAluFlags(res, FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.ALU);
-        } break;
+            return (cpu, nextPC) -> {
+                int res = Alu.add16H(cpu.getReg16(Reg16.HL), cpu.getReg16SP(r));
+                cpu.setReg16(Reg16.HL, Bits.extract(res, Byte.SIZE, Byte.SIZE * 2));
+                cpu.combineAluFlags(res, FLAGS_ADD_HL);
+                return nextPC;
+            };
+        }
         case INC_R16SP: {
             Reg16 r = extractReg16(opcode);
-            setReg16SP(r, Bits.clip(Byte.SIZE * 2, getReg16SP(r) + 1));
-        } break;
+            return (cpu, nextPC) -> {
+                cpu.setReg16SP(r, Bits.clip(Byte.SIZE * 2, cpu.getReg16SP(r) + 1));
+                return nextPC;
+            };
+        }
         case LD_HLSP_S8: {
-            int res = Alu.add16L(SP, Bits.clip(Byte.SIZE * 2, Bits.signExtend8(read8AfterOpcode())));
-            boolean stockInHL = Bits.test(opcode.encoding, 4);
-            if (stockInHL)
-                setReg16(Reg16.HL, Bits.extract(res, Byte.SIZE, Byte.SIZE * 2));
-            else
-                setReg16SP(Reg16.AF, Bits.extract(res, Byte.SIZE, Byte.SIZE * 2));
-
-            combineAluFlags(res, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.ALU);
-        } break;
+            Reg16 r = Bits.test(opcode.encoding, 4) ? Reg16.HL : Reg16.AF;
+            return (cpu, nextPC) -> {
+                int res = Alu.add16L(cpu.SP, Bits.clip(Byte.SIZE * 2, Bits.signExtend8(cpu.immediate8())));
+                cpu.setReg16SP(r, Bits.extract(res, Byte.SIZE, Byte.SIZE * 2));
+                cpu.combineAluFlags(res, FLAGS_ADD_SP);
+                return nextPC;
+            };
+        }
         // Subtract/Compare Instructions :
         case SUB_A_N8: {
-            int left = reg8bits.get(Reg.A);
-            int right = read8AfterOpcode();
-            boolean carry = extractCarryFromOpcodeAndFlags(opcode);
-            setRegAndFlags(Reg.A, Alu.sub(left, right, carry));
-        } break;
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                int left = cpu.reg8bits[A];
+                int right = cpu.immediate8();
+                boolean carry = cpu.carryIf(withCarry);
+                cpu.setRegAndFlags(A, Alu.sub(left, right, carry));
+                return nextPC;
+            };
+        }
         case SUB_A_R8: {
-            int left = reg8bits.get(Reg.A);
-            int right = reg8bits.get(extractReg(opcode, 0));
-            boolean carry = extractCarryFromOpcodeAndFlags(opcode);
-            setRegAndFlags(Reg.A, Alu.sub(left, right, carry));
-        } break;
+            int r = extractReg(opcode, 0);
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                int left = cpu.reg8bits[A];
+                int right = cpu.reg8bits[r];
+                boolean carry = cpu.carryIf(withCarry);
+                cpu.setRegAndFlags(A, Alu.sub(left, right, carry));
+                return nextPC;
+            };
+        }
         case SUB_A_HLR: {
-            int left = reg8bits.get(Reg.A);
-            int right = read8(getReg16(Reg16.HL));
-            boolean carry = extractCarryFromOpcodeAndFlags(opcode);
-            setRegAndFlags(Reg.A, Alu.sub(left, right, carry));
-        } break;
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                int left = cpu.reg8bits[A];
+                int right = cpu.read8AtHL();
+                boolean carry = cpu.carryIf(withCarry);
+                cpu.setRegAndFlags(A, Alu.sub(left, right, carry));
+                return nextPC;
+            };
+        }
         case DEC_R8: {
-            Reg r = extractReg(opcode, 3);
-            int res = Alu.sub(reg8bits.get(r), 1);
-            setRegFromAlu(r, res);
-            combineAluFlags(res, FlagSrc.ALU, FlagSrc.TRUE, FlagSrc.ALU, FlagSrc.CPU);
-        } break;
-        case DEC_HLR: {
-            int res = Alu.sub(read8AtHL(), 1);
-            write8AtHL(Bits.extract(res, Byte.SIZE, Byte.SIZE));
-            combineAluFlags(res, FlagSrc.ALU, FlagSrc.TRUE, FlagSrc.ALU, FlagSrc.CPU);
-        } break;
-        case CP_A_N8: {
-            int right = read8AfterOpcode();
-            setFlagsFromAlu(Alu.sub(reg8bits.get(Reg.A), right));
-        } break;
+            int r = extractReg(opcode, 3);
+            return (cpu, nextPC) -> {
+                int res = Alu.sub(cpu.reg8bits[r], 1);
+                cpu.setRegFromAlu(r, res);
+                cpu.combineAluFlags(res, FLAGS_DEC);
+                return nextPC;
+            };
+        }
+        case DEC_HLR:
+            return (cpu, nextPC) -> {
+                int res = Alu.sub(cpu.read8AtHL(), 1);
+                cpu.write8AtHL(Bits.extract(res, Byte.SIZE, Byte.SIZE));
+                cpu.combineAluFlags(res, FLAGS_DEC);
+                return nextPC;
+            };
+        case CP_A_N8:
+            return (cpu, nextPC) -> {
+                int right = cpu.immediate8();
+                cpu.setFlagsFromAlu(Alu.sub(cpu.reg8bits[A], right));
+                return nextPC;
+            };
         case CP_A_R8: {
-            int right = reg8bits.get(extractReg(opcode, 0));
-            setFlagsFromAlu(Alu.sub(reg8bits.get(Reg.A), right));
-        } break;
-        case CP_A_HLR: {
-            int right = read8(getReg16(Reg16.HL));
-            setFlagsFromAlu(Alu.sub(reg8bits.get(Reg.A), right));
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                int right = cpu.reg8bits[r];
+                cpu.setFlagsFromAlu(Alu.sub(cpu.reg8bits[A], right));
+                return nextPC;
+            };
+        }
+        case CP_A_HLR:
+            return (cpu, nextPC) -> {
+                int right = cpu.read8AtHL();
+                cpu.setFlagsFromAlu(Alu.sub(cpu.reg8bits[A], right));
+                return nextPC;
+            };
         case DEC_R16SP: {
             Reg16 r = extractReg16(opcode);
-            setReg16SP(r, Bits.clip(Byte.SIZE * 2, getReg16SP(r) - 1));
-        } break;
+            return (cpu, nextPC) -> {
+                cpu.setReg16SP(r, Bits.clip(Byte.SIZE * 2, cpu.getReg16SP(r) - 1));
+                return nextPC;
+            };
+        }
         // And, or, xor, complement Instructions :
-        case AND_A_N8: {
-            int res = Alu.and(reg8bits.get(Reg.A), read8AfterOpcode());
-            setRegAndFlags(Reg.A, res);
-        } break;
+        case AND_A_N8:
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.and(cpu.reg8bits[A], cpu.immediate8()));
+                return nextPC;
+            };
         case AND_A_R8: {
-            int res = Alu.and(reg8bits.get(Reg.A), reg8bits.get(extractReg(opcode, 0)));
-            setRegAndFlags(Reg.A, res);
-        } break;
-        case AND_A_HLR: {
-            int res = Alu.and(reg8bits.get(Reg.A), read8AtHL());
-            setRegAndFlags(Reg.A, res);
-        } break;
-        case OR_A_N8: {
-            int res = Alu.or(reg8bits.get(Reg.A), read8AfterOpcode());
-            setRegAndFlags(Reg.A, res);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.and(cpu.reg8bits[A], cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case AND_A_HLR:
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.and(cpu.reg8bits[A], cpu.read8AtHL()));
+                return nextPC;
+            };
+        case OR_A_N8:
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.or(cpu.reg8bits[A], cpu.immediate8()));
+                return nextPC;
+            };
         case OR_A_R8: {
-            int res = Alu.or(reg8bits.get(Reg.A), reg8bits.get(extractReg(opcode, 0)));
-            setRegAndFlags(Reg.A, res);
-        } break;
-        case OR_A_HLR: {
-            int res = Alu.or(reg8bits.get(Reg.A), read8AtHL());
-            setRegAndFlags(Reg.A, res);
-        } break;
-        case XOR_A_N8: {
-            int res = Alu.xor(reg8bits.get(Reg.A), read8AfterOpcode());
-            setRegAndFlags(Reg.A, res);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.or(cpu.reg8bits[A], cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case OR_A_HLR:
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.or(cpu.reg8bits[A], cpu.read8AtHL()));
+                return nextPC;
+            };
+        case XOR_A_N8:
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.xor(cpu.reg8bits[A], cpu.immediate8()));
+                return nextPC;
+            };
         case XOR_A_R8: {
-            int res = Alu.xor(reg8bits.get(Reg.A), reg8bits.get(extractReg(opcode, 0)));
-            setRegAndFlags(Reg.A, res);
-        } break;
-        case XOR_A_HLR: {
-            int res = Alu.xor(reg8bits.get(Reg.A), read8AtHL());
-            setRegAndFlags(Reg.A, res);
-        } break;
-        case CPL: {
-            reg8bits.set(Reg.A, Bits.complement8(reg8bits.get(Reg.A)));
-            combineAluFlags(0, FlagSrc.CPU, FlagSrc.TRUE, FlagSrc.TRUE, FlagSrc.CPU);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.xor(cpu.reg8bits[A], cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case XOR_A_HLR:
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(A, Alu.xor(cpu.reg8bits[A], cpu.read8AtHL()));
+                return nextPC;
+            };
+        case CPL:
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[A] = Bits.complement8(cpu.reg8bits[A]);
+                cpu.combineAluFlags(0, FLAGS_CPL);
+                return nextPC;
+            };
         // Rotate, shift Instructions :
         case SLA_R8: {
-            Reg r = extractReg(opcode, 0);
-            int res = Alu.shiftLeft(reg8bits.get(r));
-            setRegAndFlags(r, res);
-        } break;
-        case SLA_HLR: {
-            int res = Alu.shiftLeft(read8AtHL());
-            write8AtHLAndSetFlags(res);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(r, Alu.shiftLeft(cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case SLA_HLR:
+            return (cpu, nextPC) -> {
+                cpu.write8AtHLAndSetFlags(Alu.shiftLeft(cpu.read8AtHL()));
+                return nextPC;
+            };
         case SRA_R8: {
-            Reg r = extractReg(opcode, 0);
-            int res = Alu.shiftRightA(reg8bits.get(r));
-            setRegAndFlags(r, res);
-        } break;
-        case SRA_HLR: {
-            int res = Alu.shiftRightA(read8AtHL());
-            write8AtHLAndSetFlags(res);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(r, Alu.shiftRightA(cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case SRA_HLR:
+            return (cpu, nextPC) -> {
+                cpu.write8AtHLAndSetFlags(Alu.shiftRightA(cpu.read8AtHL()));
+                return nextPC;
+            };
         case SRL_R8: {
-            Reg r = extractReg(opcode, 0);
-            int res = Alu.shiftRightL(reg8bits.get(r));
-            setRegAndFlags(r, res);
-        } break;
-        case SRL_HLR: {
-            int res = Alu.shiftRightL(read8AtHL());
-            write8AtHLAndSetFlags(res);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(r, Alu.shiftRightL(cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case SRL_HLR:
+            return (cpu, nextPC) -> {
+                cpu.write8AtHLAndSetFlags(Alu.shiftRightL(cpu.read8AtHL()));
+                return nextPC;
+            };
         case ROTCA: {
-            int res = Alu.rotate(extractRotDirFrom(opcode), reg8bits.get(Reg.A));
-            setRegFromAlu(Reg.A, res);
-            combineAluFlags(res, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU);
-        } break;
+            RotDir dir = extractRotDir(opcode);
+            return (cpu, nextPC) -> {
+                int res = Alu.rotate(dir, cpu.reg8bits[A]);
+                cpu.setRegFromAlu(A, res);
+                cpu.combineAluFlags(res, FLAGS_ROT_A);
+                return nextPC;
+            };
+        }
         case ROTA: {
-            int res = Alu.rotate(extractRotDirFrom(opcode), reg8bits.get(Reg.A), getFlagValue(Flag.C));
-            setRegFromAlu(Reg.A, res);
-            combineAluFlags(res, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU);
-        } break;
+            RotDir dir = extractRotDir(opcode);
+            return (cpu, nextPC) -> {
+                int res = Alu.rotate(dir, cpu.reg8bits[A], cpu.getFlagValue(Flag.C));
+                cpu.setRegFromAlu(A, res);
+                cpu.combineAluFlags(res, FLAGS_ROT_A);
+                return nextPC;
+            };
+        }
         case ROTC_R8: {
-            Reg r = extractReg(opcode, 0);
-            int res = Alu.rotate(extractRotDirFrom(opcode), reg8bits.get(r));
-            setRegAndFlags(r, res);
-        } break;
+            int r = extractReg(opcode, 0);
+            RotDir dir = extractRotDir(opcode);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(r, Alu.rotate(dir, cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
         case ROT_R8: {
-            Reg r = extractReg(opcode, 0);
-            int res = Alu.rotate(extractRotDirFrom(opcode), reg8bits.get(r), getFlagValue(Flag.C));
-            setRegAndFlags(r, res);
-        } break;
+            int r = extractReg(opcode, 0);
+            RotDir dir = extractRotDir(opcode);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(r, Alu.rotate(dir, cpu.reg8bits[r], cpu.getFlagValue(Flag.C)));
+                return nextPC;
+            };
+        }
         case ROTC_HLR: {
-            int res = Alu.rotate(extractRotDirFrom(opcode), read8AtHL());
-            write8AtHLAndSetFlags(res);
-        } break;
+            RotDir dir = extractRotDir(opcode);
+            return (cpu, nextPC) -> {
+                cpu.write8AtHLAndSetFlags(Alu.rotate(dir, cpu.read8AtHL()));
+                return nextPC;
+            };
+        }
         case ROT_HLR: {
-            int res = Alu.rotate(extractRotDirFrom(opcode), read8AtHL(), getFlagValue(Flag.C));
-            write8AtHLAndSetFlags(res);
-        } break;
+            RotDir dir = extractRotDir(opcode);
+            return (cpu, nextPC) -> {
+                cpu.write8AtHLAndSetFlags(Alu.rotate(dir, cpu.read8AtHL(), cpu.getFlagValue(Flag.C)));
+                return nextPC;
+            };
+        }
         case SWAP_R8: {
-            Reg r = extractReg(opcode, 0);
-            int res = Alu.swap(reg8bits.get(r));
-            setRegAndFlags(r, res);
-        } break;
-        case SWAP_HLR: {
-            int res = Alu.swap(read8AtHL());
-            write8AtHLAndSetFlags(res);
-        } break;
+            int r = extractReg(opcode, 0);
+            return (cpu, nextPC) -> {
+                cpu.setRegAndFlags(r, Alu.swap(cpu.reg8bits[r]));
+                return nextPC;
+            };
+        }
+        case SWAP_HLR:
+            return (cpu, nextPC) -> {
+                cpu.write8AtHLAndSetFlags(Alu.swap(cpu.read8AtHL()));
+                return nextPC;
+            };
         // Bit test and set Instructions :
         case BIT_U3_R8: {
-            int res = Alu.testBit(reg8bits.get(extractReg(opcode, 0)), Bits.extract(opcode.encoding, 3, REG8_CODE_SIZE));
-            combineAluFlags(res, FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.TRUE, FlagSrc.CPU);
-        } break;
+            int r = extractReg(opcode, 0);
+            int index = extractBitIndex(opcode);
+            return (cpu, nextPC) -> {
+                int res = Alu.testBit(cpu.reg8bits[r], index);
+                cpu.combineAluFlags(res, FLAGS_BIT);
+                return nextPC;
+            };
+        }
         case BIT_U3_HLR: {
-            int res = Alu.testBit(read8AtHL(), Bits.extract(opcode.encoding, 3, REG8_CODE_SIZE));
-            combineAluFlags(res, FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.TRUE, FlagSrc.CPU);
-        } break;
+            int index = extractBitIndex(opcode);
+            return (cpu, nextPC) -> {
+                int res = Alu.testBit(cpu.read8AtHL(), index);
+                cpu.combineAluFlags(res, FLAGS_BIT);
+                return nextPC;
+            };
+        }
         case CHG_U3_R8: {
-            Reg r = extractReg(opcode, 0);
-            int bits = Bits.set(reg8bits.get(r), Bits.extract(opcode.encoding, 3, REG8_CODE_SIZE), isBitSetOperation(opcode));
-            reg8bits.set(r, bits);
-        } break;
+            int r = extractReg(opcode, 0);
+            int index = extractBitIndex(opcode);
+            boolean set = isBitSetOperation(opcode);
+            return (cpu, nextPC) -> {
+                cpu.reg8bits[r] = Bits.set(cpu.reg8bits[r], index, set);
+                return nextPC;
+            };
+        }
         case CHG_U3_HLR: {
-            int bits = Bits.set(read8AtHL(), Bits.extract(opcode.encoding, 3, REG8_CODE_SIZE), isBitSetOperation(opcode));
-            write8AtHL(bits);
-        } break;
+            int index = extractBitIndex(opcode);
+            boolean set = isBitSetOperation(opcode);
+            return (cpu, nextPC) -> {
+                cpu.write8AtHL(Bits.set(cpu.read8AtHL(), index, set));
+                return nextPC;
+            };
+        }
         // Misc. ALU Instructions :
-        case DAA: {
-            int res = Alu.bcdAdjust(reg8bits.get(Reg.A), getFlagValue(Flag.N), getFlagValue(Flag.H), getFlagValue(Flag.C));
-            setRegAndFlags(Reg.A, res);
-        } break;
+        case DAA:
+            return (cpu, nextPC) -> {
+                int res = Alu.bcdAdjust(cpu.reg8bits[A], cpu.getFlagValue(Flag.N),
+                        cpu.getFlagValue(Flag.H), cpu.getFlagValue(Flag.C));
+                cpu.setRegAndFlags(A, res);
+                return nextPC;
+            };
         case SCCF: {
-            boolean newFlagC = !extractCarryFromOpcodeAndFlags(opcode);
-            combineAluFlags(0, FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.FALSE, newFlagC ? FlagSrc.TRUE : FlagSrc.FALSE);
-        } break;
+            boolean withCarry = extractWithCarry(opcode);
+            return (cpu, nextPC) -> {
+                boolean newFlagC = !cpu.carryIf(withCarry);
+                cpu.combineAluFlags(0, newFlagC ? FLAGS_SET_C : FLAGS_RESET_C);
+                return nextPC;
+            };
+        }
         // Jumps
-        case JP_N16: {
-            nextPC = read16AfterOpcode();
-        } break;
+        case JP_N16:
+            return (cpu, nextPC) -> cpu.immediate16();
         case JP_CC_N16: {
-            if (readAndTestCondition(opcode)) {
-                nextPC = read16AfterOpcode();
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
-        } break;
-        case JP_HL: {
-            nextPC = getReg16(Reg16.HL);
-        } break;
-        case JR_E8: {
-            int e8 = Bits.signExtend8(read8AfterOpcode());
-            nextPC =  Bits.clip(Byte.SIZE * 2, nextPC + e8);
-        } break;
+            int condition = extractCondition(opcode);
+            return (cpu, nextPC) -> {
+                if (cpu.testCondition(condition)) {
+                    cpu.nextNonIdleCycle += additionalCycles;
+                    return cpu.immediate16();
+                }
+                return nextPC;
+            };
+        }
+        case JP_HL:
+            return (cpu, nextPC) -> cpu.getReg16(Reg16.HL);
+        case JR_E8:
+            return (cpu, nextPC) -> Bits.clip(Byte.SIZE * 2, nextPC + Bits.signExtend8(cpu.immediate8()));
         case JR_CC_E8: {
-            if (readAndTestCondition(opcode)) {
-                int e8 = Bits.signExtend8(read8AfterOpcode());
-                nextPC =  Bits.clip(Byte.SIZE * 2, nextPC + e8);
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
-        } break;
+            int condition = extractCondition(opcode);
+            return (cpu, nextPC) -> {
+                if (cpu.testCondition(condition)) {
+                    cpu.nextNonIdleCycle += additionalCycles;
+                    return Bits.clip(Byte.SIZE * 2, nextPC + Bits.signExtend8(cpu.immediate8()));
+                }
+                return nextPC;
+            };
+        }
         // Calls and returns
-        case CALL_N16: {
-            push16(nextPC);
-            nextPC = read16AfterOpcode();
-        } break;
+        case CALL_N16:
+            return (cpu, nextPC) -> {
+                cpu.push16(nextPC);
+                return cpu.immediate16();
+            };
         case CALL_CC_N16: {
-            if (readAndTestCondition(opcode)) {
-                push16(nextPC);
-                nextPC = read16AfterOpcode();
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
-        } break;
+            int condition = extractCondition(opcode);
+            return (cpu, nextPC) -> {
+                if (cpu.testCondition(condition)) {
+                    cpu.push16(nextPC);
+                    cpu.nextNonIdleCycle += additionalCycles;
+                    return cpu.immediate16();
+                }
+                return nextPC;
+            };
+        }
         case RST_U3: {
-            push16(nextPC);
-            nextPC = AddressMap.RESETS[Bits.extract(opcode.encoding, 3, REG8_CODE_SIZE)];
-        } break;
-        case RET: {
-            nextPC = pop16();
-        } break;
+            int target = AddressMap.RESETS[extractBitIndex(opcode)];
+            return (cpu, nextPC) -> {
+                cpu.push16(nextPC);
+                return target;
+            };
+        }
+        case RET:
+            return (cpu, nextPC) -> cpu.pop16();
         case RET_CC: {
-            if (readAndTestCondition(opcode)) {
-                nextPC = pop16();
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
-        } break;
+            int condition = extractCondition(opcode);
+            return (cpu, nextPC) -> {
+                if (cpu.testCondition(condition)) {
+                    cpu.nextNonIdleCycle += additionalCycles;
+                    return cpu.pop16();
+                }
+                return nextPC;
+            };
+        }
         // Interrupts
         case EDI: {
-            IME = Bits.test(opcode.encoding, 3);
-        } break;
-        case RETI: {
-            IME = true;
-            nextPC = pop16();
-        } break;
+            boolean enable = Bits.test(opcode.encoding, 3);
+            return (cpu, nextPC) -> {
+                cpu.IME = enable;
+                return nextPC;
+            };
+        }
+        case RETI:
+            return (cpu, nextPC) -> {
+                cpu.IME = true;
+                return cpu.pop16();
+            };
         // Misc control
-        case HALT: {
-            isHalted = true;
-        } break;
+        case HALT:
+            return (cpu, nextPC) -> {
+                cpu.isHalted = true;
+                return nextPC;
+            };
         case STOP:
-            throw new Error("STOP is not implemented");
+            return (cpu, nextPC) -> {
+                throw new Error("STOP is not implemented");
+            };
         default:
             throw new Error("Family opcode non supported : " + opcode.family
                     + ".\nOpcode : 0x" + Integer.toHexString(opcode.encoding));
         }
-        PC = nextPC;
-        nextNonIdleCycle += opcode.cycles;
     }
 
     private int read8(int address) {
-        return bus.read(address);
+        int value = bus.read(address);
+        if (loopIsIdle)
+            recordLoopRead(address, value);
+        return value;
     }
     private int read8AtHL() {
         return read8(getReg16(Reg16.HL));
     }
-    private int read8AfterOpcode() {
-        return read8(Bits.clip(2 * Byte.SIZE, PC + 1));
+    private int immediate8() {
+        return immediate;
     }
 
     private void write8(int address, int v8) {
         bus.write(address, v8);
+        loopIsIdle = false;
     }
     private void write8AtHL(int v8) {
         write8(getReg16(Reg16.HL), v8);
     }
 
     private int read16(int address) {
-        return Bits.make16(bus.read(Bits.clip(2 * Byte.SIZE, address + 1)), bus.read(address));
+        return Bits.make16(read8(Bits.clip(2 * Byte.SIZE, address + 1)), read8(address));
     }
-    private int read16AfterOpcode() {
-        return read16(Bits.clip(2 * Byte.SIZE, PC + 1));
+    private int immediate16() {
+        return immediate;
     }
 
     private void write16(int address, int v16) {
-        bus.write(address, Bits.extract(v16, 0, Byte.SIZE));
-        bus.write(Bits.clip(2 * Byte.SIZE, address + 1), Bits.extract(v16, Byte.SIZE, Byte.SIZE));
+        write8(address, Bits.extract(v16, 0, Byte.SIZE));
+        write8(Bits.clip(2 * Byte.SIZE, address + 1), Bits.extract(v16, Byte.SIZE, Byte.SIZE));
     }
 
     private void push16(int v16) {
@@ -641,9 +1232,9 @@ public final class Cpu implements Component, Clocked {
     }
 
     private int getReg16(Reg16 r) {
-        Reg rMSB = Reg.ALL.get(r.index() * 2);
-        Reg rLSB = Reg.ALL.get(r.index() * 2 + 1);
-        return Bits.make16(reg8bits.get(rMSB), reg8bits.get(rLSB));
+        int rMSB = r.index() * 2;
+        int rLSB = r.index() * 2 + 1;
+        return Bits.make16(reg8bits[rMSB], reg8bits[rLSB]);
     }
     private int getReg16SP(Reg16 r) {
         if (r == Reg16.AF)
@@ -652,14 +1243,14 @@ public final class Cpu implements Component, Clocked {
     }
 
     private void setReg16(Reg16 r, int newValue) {
-        Reg rMSB = Reg.ALL.get(r.index() * 2);
-        Reg rLSB = Reg.ALL.get(r.index() * 2 + 1);
+        int rMSB = r.index() * 2;
+        int rLSB = r.index() * 2 + 1;
         if (r == Reg16.AF) {
-            reg8bits.set(rLSB, newValue & 0xF0);
-            reg8bits.set(rMSB, Bits.extract(newValue, Byte.SIZE, Byte.SIZE));
+            reg8bits[rLSB] = newValue & 0xF0;
+            reg8bits[rMSB] = Bits.extract(newValue, Byte.SIZE, Byte.SIZE);
         } else {
-            reg8bits.set(rLSB, Bits.extract(newValue, 0, Byte.SIZE));
-            reg8bits.set(rMSB, Bits.extract(newValue, Byte.SIZE, Byte.SIZE));
+            reg8bits[rLSB] = Bits.extract(newValue, 0, Byte.SIZE);
+            reg8bits[rMSB] = Bits.extract(newValue, Byte.SIZE, Byte.SIZE);
         }
     }
     private void setReg16SP(Reg16 r, int newValue) {
@@ -669,28 +1260,28 @@ public final class Cpu implements Component, Clocked {
             setReg16(r, newValue);
     }
 
-    private Reg extractReg(Opcode opcode, int startBit) {
+    private static int extractReg(Opcode opcode, int startBit) {
         int regCode = Bits.extract(opcode.encoding, startBit, REG8_CODE_SIZE);
         switch (regCode) {
         case 0b000:
-            return Reg.B;
+            return B;
         case 0b001:
-            return Reg.C;
+            return C;
         case 0b010:
-            return Reg.D;
+            return D;
         case 0b011:
-            return Reg.E;
+            return E;
         case 0b100:
-            return Reg.H;
+            return H;
         case 0b101:
-            return Reg.L;
+            return L;
         case 0b111:
-            return Reg.A;
+            return A;
         default:
             throw new Error("Register (8 bits) encoding not valid.");
         }
     }
-    private Reg16 extractReg16(Opcode opcode) {
+    private static Reg16 extractReg16(Opcode opcode) {
         int regCode = Bits.extract(opcode.encoding, REG16_CODE_START, REG16_CODE_SIZE);
         switch (regCode) {
         case 0b00:
@@ -706,13 +1297,13 @@ public final class Cpu implements Component, Clocked {
         }
     }
 
-    private void setRegFromAlu(Reg reg, int valueFlags) {
-        reg8bits.set(reg, Bits.extract(valueFlags, Byte.SIZE, Byte.SIZE));
+    private void setRegFromAlu(int reg, int valueFlags) {
+        reg8bits[reg] = Bits.extract(valueFlags, Byte.SIZE, Byte.SIZE);
     }
     private void setFlagsFromAlu(int valueFlags) {
-        reg8bits.set(Reg.F, Bits.extract(valueFlags, 0, Byte.SIZE));
+        reg8bits[F] = Bits.extract(valueFlags, 0, Byte.SIZE);
     }
-    private void setRegAndFlags(Reg reg, int valueFlags) {
+    private void setRegAndFlags(int reg, int valueFlags) {
         setRegFromAlu(reg, valueFlags);
         setFlagsFromAlu(valueFlags);
     }
@@ -721,44 +1312,61 @@ public final class Cpu implements Component, Clocked {
         setFlagsFromAlu(valueFlags);
     }
 
-    private void combineAluFlags(int vf, FlagSrc z, FlagSrc n, FlagSrc h, FlagSrc c) {
-        int regF = reg8bits.get(Reg.F);
-
-        int flags = computeFlagMask(z, Flag.Z, vf, regF) | computeFlagMask(n, Flag.N, vf, regF)
-                | computeFlagMask(h, Flag.H, vf, regF) | computeFlagMask(c, Flag.C, vf, regF);
-        reg8bits.set(Reg.F, flags);
+    /*
+     * A combination of flags sources is packed in an int, as
+     * the masks of the flags taken from the ALU (bits 0 to 7),
+     * kept from the Cpu (bits 8 to 15) and set (bits 16 to 23)
+     */
+    private static int flagsCombination(FlagSrc z, FlagSrc n, FlagSrc h, FlagSrc c) {
+        return flagMask(z, Flag.Z) | flagMask(n, Flag.N) | flagMask(h, Flag.H) | flagMask(c, Flag.C);
     }
-    private int computeFlagMask(FlagSrc src, Flag flag, int aluVF, int cpuF) {
+    private static int flagMask(FlagSrc src, Flag flag) {
         switch (src) {
         case TRUE:
-            return flag.mask();
+            return flag.mask() << (2 * Byte.SIZE);
         case ALU:
-            return aluVF & flag.mask();
+            return flag.mask();
         case CPU:
-            return cpuF & flag.mask();
+            return flag.mask() << Byte.SIZE;
         default:
             return 0;
         }
     }
 
-    private int extractHLIncrement(Opcode opcode) {
+    private void combineAluFlags(int vf, int combination) {
+        int aluMask = Bits.clip(Byte.SIZE, combination);
+        int cpuMask = Bits.extract(combination, Byte.SIZE, Byte.SIZE);
+        int setMask = combination >>> (2 * Byte.SIZE);
+        reg8bits[F] = (vf & aluMask) | (reg8bits[F] & cpuMask) | setMask;
+    }
+
+    private static int extractHLIncrement(Opcode opcode) {
         return (opcode.encoding & Bits.mask(INDEX_INCREM_HL)) != 0 ? -1 : 1;
     }
-    private boolean extractCarryFromOpcodeAndFlags(Opcode opcode) {
-        return Bits.test(opcode.encoding, 3) && Bits.test(reg8bits.get(Reg.F), Flag.C);
+    private static boolean extractWithCarry(Opcode opcode) {
+        return Bits.test(opcode.encoding, 3);
     }
-    private RotDir extractRotDirFrom(Opcode opcode) {
+    private static RotDir extractRotDir(Opcode opcode) {
         return Bits.test(opcode.encoding, 3) ? RotDir.RIGHT : RotDir.LEFT;
     }
-    private boolean getFlagValue(Flag flag) {
-        return reg8bits.testBit(Reg.F, flag);
+    private static int extractBitIndex(Opcode opcode) {
+        return Bits.extract(opcode.encoding, 3, REG8_CODE_SIZE);
     }
-    private boolean isBitSetOperation(Opcode opcode) {
+    private static boolean isBitSetOperation(Opcode opcode) {
         return Bits.test(opcode.encoding, 6);
     }
+    private static int extractCondition(Opcode opcode) {
+        return Bits.extract(opcode.encoding, 3, 2);
+    }
+
+    private boolean carryIf(boolean withCarry) {
+        return withCarry && Bits.test(reg8bits[F], Flag.C);
+    }
+    private boolean getFlagValue(Flag flag) {
+        return Bits.test(reg8bits[F], flag);
+    }
 
-    private boolean readAndTestCondition(Opcode opcode) {
-        int condition = Bits.extract(opcode.encoding, 3, 2);
+    private boolean testCondition(int condition) {
         switch (condition) {
         case 0b00: // Non Z
             return !getFlagValue(Flag.Z);
@@ -770,9 +1378,4 @@ public final class Cpu implements Component, Clocked {
             return getFlagValue(Flag.C);
         }
     }
-
-    private int getLowestInterrupt() {
-        int all = interruptionReg.get(RegI.IE) & interruptionReg.get(RegI.IF);
-        return all == 0 ? -1 : Integer.numberOfTrailingZeros(all);
-    }
 } 
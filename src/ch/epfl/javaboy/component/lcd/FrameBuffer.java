@@ -0,0 +1,125 @@
+package ch.epfl.javaboy.component.lcd;
+
+import ch.epfl.javaboy.Preconditions;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * JavaFX Image, reused to show the
+ * successive LcdImages of the LcdController.
+ * Its pixels are shared with JavaFX through
+ * a PixelBuffer, and only the lines which
+ * change from one LcdImage to the next
+ * are converted (by a PixelConverter) and updated
+ * @author Toufi
+ */
+public final class FrameBuffer {
+
+    private static final int COLORS_COUNT = 4;
+
+    private final int width, height, words;
+    private final int[] pixels;
+    // Planes of the shown lines (see LcdImage)
+    private final int[] planes;
+    private final int[] msb, lsb;
+    private final PixelConverter converter;
+    private final PixelBuffer<IntBuffer> buffer;
+    private final WritableImage image;
+    private LcdImage shown;
+
+    /**
+     * Constructs a new FrameBuffer, showing
+     * a blank image of the given dimensions,
+     * with the default palette
+     * @param width (int) width of the image
+     * @param height (int) height of the image
+     * @throws IllegalArgumentException
+     * if width is not a positive multiple of 32,
+     * or if height is not positive
+     */
+    public FrameBuffer(int width, int height) {
+        this(width, height, PixelConverter.DEFAULT);
+    }
+
+    /**
+     * Constructs a new FrameBuffer, showing
+     * a blank image of the given dimensions,
+     * with the palette of the given PixelConverter
+     * @param width (int) width of the image
+     * @param height (int) height of the image
+     * @param converter (PixelConverter) converter of the lines
+     * @throws IllegalArgumentException
+     * if width is not a positive multiple of 32,
+     * if height is not positive, or if a color
+     * of the palette is not opaque
+     */
+    public FrameBuffer(int width, int height, PixelConverter converter) {
+        Preconditions.checkArgument(width > 0 && width % Integer.SIZE == 0 && height > 0);
+        this.converter = Objects.requireNonNull(converter);
+        // The pixels are given to JavaFX as premultiplied, which only opaque colors are
+        for (int i = 0 ; i < COLORS_COUNT ; ++i)
+            Preconditions.checkArgument((converter.color(i) >>> 24) == 0xFF);
+        this.width = width;
+        this.height = height;
+        words = width / Integer.SIZE;
+        pixels = new int[width * height];
+        Arrays.fill(pixels, converter.color(0));
+        planes = new int[height * 2 * words];
+        msb = new int[words];
+        lsb = new int[words];
+        buffer = new PixelBuffer<>(width, height, IntBuffer.wrap(pixels),
+                PixelFormat.getIntArgbPreInstance());
+        image = new WritableImage(buffer);
+        shown = null;
+    }
+
+    /**
+     * Returns the JavaFX Image, which is
+     * the same for the whole life of this FrameBuffer
+     * @return (Image) image showing the last LcdImage
+     */
+    public Image image() {
+        return image;
+    }
+
+    /**
+     * Shows the given LcdImage. Must be called
+     * on the JavaFX Application Thread
+     * @param lcdImg (LcdImage) image to show
+     * @throws IllegalArgumentException
+     * if the image does not have the dimensions of this FrameBuffer
+     */
+    public void show(LcdImage lcdImg) {
+        Objects.requireNonNull(lcdImg);
+        Preconditions.checkArgument(lcdImg.width() == width && lcdImg.height() == height);
+        if (lcdImg == shown)
+            return;
+        shown = lcdImg;
+
+        int firstChanged = height, lastChanged = -1;
+        for (int y = 0 ; y < height ; ++y) {
+            lcdImg.getLine(y, msb, lsb);
+            final int from = 2 * y * words;
+            if (Arrays.equals(msb, 0, words, planes, from, from + words)
+                    && Arrays.equals(lsb, 0, words, planes, from + words, from + 2 * words))
+                continue;
+            System.arraycopy(msb, 0, planes, from, words);
+            System.arraycopy(lsb, 0, planes, from + words, words);
+            converter.toArgb(lcdImg, y, pixels, y * width);
+            firstChanged = Math.min(firstChanged, y);
+            lastChanged = y;
+        }
+
+        if (lastChanged >= 0) {
+            Rectangle2D dirty = new Rectangle2D(0, firstChanged, width, lastChanged - firstChanged + 1);
+            buffer.updateBuffer(b -> dirty);
+        }
+    }
+}
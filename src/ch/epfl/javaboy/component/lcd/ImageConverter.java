@@ -1,11 +1,9 @@
 package ch.epfl.javaboy.component.lcd;
 
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 
 /**
  * Used to convert an LcdImage to
@@ -15,13 +13,6 @@ import java.io.IOException;
 @SuppressWarnings("WeakerAccess")
 public final class ImageConverter {
 
-    private static final int[] COLOR_MAP = {
-            0xFFFF_FFFF,
-            0xFFD3_D3D3,
-            0xFFA9_A9A9,
-            0xFF00_0000
-    };
-
     /**
      * Convert the given LcdImage to a JavaFX Image
      * @param lcdImg (LcdImage) toConvert
@@ -29,12 +20,10 @@ public final class ImageConverter {
      */
     public static Image convert(LcdImage lcdImg) {
         WritableImage img = new WritableImage(lcdImg.width(), lcdImg.height());
-        PixelWriter writer = img.getPixelWriter();
-
-        for (int y = 0 ; y < lcdImg.height() ; ++y)
-            for (int x = 0 ; x < lcdImg.width() ; ++x)
-                writer.setArgb(x, y, COLOR_MAP[lcdImg.getColor(x, y)]);
-
+        int[] pixels = new int[lcdImg.width() * lcdImg.height()];
+        PixelConverter.DEFAULT.toArgb(lcdImg, pixels, 0);
+        img.getPixelWriter().setPixels(0, 0, lcdImg.width(), lcdImg.height(),
+                PixelFormat.getIntArgbInstance(), pixels, 0, lcdImg.width());
         return img;
     }
 
@@ -45,16 +34,19 @@ public final class ImageConverter {
      * Expected array length : height * (2 * width / Byte.SIZE).
      * @param img (LcdImage) image to convert
      * @return (byte[]) array representing the LcdImage
-     * @throws IOException if a problem occurs when writing
-     * in the ByteArrayOutputStream
      */
-    public static byte[] toByteArray(LcdImage img) throws IOException{
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-        for (LcdImageLine line : img.getLines()) {
-            os.write(line.msb().getBytes());
-            os.write(line.lsb().getBytes());
+    public static byte[] toByteArray(LcdImage img) {
+        final int words = img.width() / Integer.SIZE;
+        int[] msbs = new int[words];
+        int[] lsbs = new int[words];
+        byte[] array = new byte[img.height() * 2 * words * Integer.BYTES];
+        int to = 0;
+        for (int y = 0 ; y < img.height() ; ++y) {
+            img.getLine(y, msbs, lsbs);
+            to = unpackInts(msbs, array, to);
+            to = unpackInts(lsbs, array, to);
         }
-        return os.toByteArray();
+        return array;
     }
 
     /**
@@ -71,25 +63,36 @@ public final class ImageConverter {
 
     public static LcdImage.Builder builderFromByteArray(byte[] array, int width, int height) {
         LcdImage.Builder builder = new LcdImage.Builder(width, height);
-        final int bytesInLine = width / Byte.SIZE;
+        final int words = width / Integer.SIZE;
 
-        byte[] msbs = new byte[bytesInLine];
-        byte[] lsbs = new byte[bytesInLine];
+        int[] msbs = new int[words];
+        int[] lsbs = new int[words];
         int from = 0;
         for (int y = 0 ; y < height ; ++y) {
-            LcdImageLine.Builder b = new LcdImageLine.Builder(width);
-            System.arraycopy(array, from, msbs, 0, bytesInLine);
-            from += bytesInLine;
-            System.arraycopy(array, from, lsbs, 0, bytesInLine);
-            from += bytesInLine;
-
-            for (int i = 0 ; i < bytesInLine ; ++i)
-                b.setBytes(i, Byte.toUnsignedInt(msbs[i]), Byte.toUnsignedInt(lsbs[i]));
-            builder.setLine(y, b.build());
+            from = packInts(array, from, msbs);
+            from = packInts(array, from, lsbs);
+            builder.setLine(y, msbs, lsbs);
         }
         return builder;
     }
 
+    private static int unpackInts(int[] ints, byte[] array, int to) {
+        for (int v : ints)
+            for (int b = 0 ; b < Integer.BYTES ; ++b)
+                array[to++] = (byte) (v >>> (b * Byte.SIZE));
+        return to;
+    }
+
+    private static int packInts(byte[] array, int from, int[] ints) {
+        for (int i = 0 ; i < ints.length ; ++i) {
+            int v = 0;
+            for (int b = 0 ; b < Integer.BYTES ; ++b)
+                v |= Byte.toUnsignedInt(array[from++]) << (b * Byte.SIZE);
+            ints[i] = v;
+        }
+        return from;
+    }
+
     private ImageConverter() {
     }
 }
@@ -3,10 +3,7 @@ package ch.epfl.javaboy.component.lcd;
 import ch.epfl.javaboy.AddressMap;
 import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.Preconditions;
-import ch.epfl.javaboy.Register;
-import ch.epfl.javaboy.RegisterFile;
 import ch.epfl.javaboy.bits.Bit;
-import ch.epfl.javaboy.bits.BitVector;
 import ch.epfl.javaboy.bits.Bits;
 import ch.epfl.javaboy.component.Clocked;
 import ch.epfl.javaboy.component.Component;
@@ -14,7 +11,6 @@ import ch.epfl.javaboy.component.cpu.Cpu;
 import ch.epfl.javaboy.component.cpu.Cpu.Interrupt;
 import ch.epfl.javaboy.component.memory.Ram;
 
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -26,10 +22,10 @@ import java.util.Objects;
  */
 public final class LcdController implements Component, Clocked {
     
-    private enum Reg implements Register {
-        LCDC, STAT, SCY, SCX, LY, LYC, DMA, BGP, OBP0, OBP1, WY, WX;
-        public static final List<Reg> ALL = List.of(values());
-    }
+    // Indices of the registers in vregs (offsets from REGS_LCDC_START)
+    private static final int LCDC = 0, STAT = 1, SCY = 2, SCX = 3, LY = 4, LYC = 5,
+            DMA = 6, BGP = 7, OBP0 = 8, OBP1 = 9, WY = 10, WX = 11;
+    private static final int REGS_COUNT = AddressMap.REGS_LCDC_END - AddressMap.REGS_LCDC_START;
 
     private enum Lcdc implements Bit {
         BG, OBJ, OBJ_SIZE, BG_AREA, TILE_SOURCE, WIN, WIN_AREA, LCD_STATUS
@@ -66,14 +62,16 @@ public final class LcdController implements Component, Clocked {
 
     private static final LcdImage BLANK_IMAGE =
             new LcdImage.Builder(LCD_WIDTH, LCD_HEIGHT).build();
-    private static final LcdImageLine BLANK_LINE =
-            new LcdImageLine.Builder(LCD_WIDTH).build();
 
     private static final int TILE_SIZE = 8;
     private static final int NB_TILES = 32;
     private static final int ALL_TILES_SIZE = TILE_SIZE * NB_TILES;
 
     private static final int LY_OVERFLOW = LCD_HEIGHT + 10;
+    private static final int LINE_CYCLES =
+            Mode.MODE2.duration() + Mode.MODE3.duration() + Mode.MODE0.duration();
+    private static final int STAT_INTERRUPTS = Stat.INT_MODE0.mask()
+            | Stat.INT_MODE1.mask() | Stat.INT_MODE2.mask() | Stat.INT_LYC.mask();
 
     private static final int BYTES_PER_TILE_LINE = 2, BYTES_PER_TILE = BYTES_PER_TILE_LINE * TILE_SIZE;
 
@@ -81,17 +79,23 @@ public final class LcdController implements Component, Clocked {
     private static final int OFFSET_SPRITE_X = -8;
     private static final int OFFSET_SPRITE_Y = -16;
     
-    private static final int TOTAL_SPRITES = 40;
     private static final int BYTES_PER_SPRITE = 4;
     
     private static final int MAX_SPRITES_PER_LINE = 10;
 
     private static final int IMAGE_SIZE = (LCD_WIDTH / Byte.SIZE * LCD_HEIGHT) * 2;
+    private static final long NO_BULK_COPY = Long.MAX_VALUE;
+
     private static final int STATE_LENGTH = AddressMap.OAM_RAM_SIZE + AddressMap.VIDEO_RAM_SIZE
-            + Reg.ALL.size() + Long.BYTES + 2 * Integer.BYTES + 1 + IMAGE_SIZE;
+            + REGS_COUNT + Long.BYTES + 2 * Integer.BYTES + 1 + IMAGE_SIZE;
 
-    private final RegisterFile<Reg> vregs;
+    private final int[] vregs;
     private final Ram vRam, oamRam;
+    private final TileCache tiles;
+    private final MapLineCache mapLines;
+    private final SpriteIndex sprites;
+    private final int[] lineSprites;
+    private final LineCompositor compositor;
     private final Cpu cpu;
     private Bus bus;
 
@@ -102,6 +106,7 @@ public final class LcdController implements Component, Clocked {
     private int winY;
     private boolean copyRequired;
     private int copyIndex;
+    private long copyEndCycle;
     
     /**
      * Constructs a new LcdController
@@ -112,13 +117,18 @@ public final class LcdController implements Component, Clocked {
      */
     public LcdController(Cpu cpu) {
         Objects.requireNonNull(cpu);
-        vregs = new RegisterFile<>(Reg.values());
+        vregs = new int[REGS_COUNT];
         vRam = new Ram(AddressMap.VIDEO_RAM_SIZE);
         oamRam = new Ram(AddressMap.OAM_RAM_SIZE);
+        tiles = new TileCache(vRam);
+        mapLines = new MapLineCache(vRam, tiles);
+        sprites = new SpriteIndex(oamRam);
+        lineSprites = new int[MAX_SPRITES_PER_LINE];
+        compositor = new LineCompositor();
         this.cpu = cpu;
         bus = null;
 
-        vregs.set(Reg.STAT, vregs.get(Reg.STAT) & ~(0b11) | Mode.MODE2.ordinal());
+        vregs[STAT] = vregs[STAT] & ~(0b11) | Mode.MODE2.ordinal();
         nextImageBuilder = new LcdImage.Builder(LCD_WIDTH, LCD_HEIGHT);
         current = BLANK_IMAGE;
         
@@ -127,6 +137,7 @@ public final class LcdController implements Component, Clocked {
         winY = 0;
         copyRequired = false;
         copyIndex = 0;
+        copyEndCycle = NO_BULK_COPY;
     }
     
     /**
@@ -143,7 +154,7 @@ public final class LcdController implements Component, Clocked {
         Preconditions.checkBits16(address);
 
         if (AddressMap.REGS_LCDC_START <= address && address < AddressMap.REGS_LCDC_END)
-            return vregs.get(addressToReg(address));
+            return vregs[addressToReg(address)];
 
         if (AddressMap.VIDEO_RAM_START <= address && address < AddressMap.VIDEO_RAM_END)
             return vRam.read(address - AddressMap.VIDEO_RAM_START);
@@ -161,10 +172,35 @@ public final class LcdController implements Component, Clocked {
 
         if (AddressMap.REGS_LCDC_START <= address && address < AddressMap.REGS_LCDC_END)
             writeToReg(address, value);
-        else if (AddressMap.VIDEO_RAM_START <= address && address < AddressMap.VIDEO_RAM_END)
+        else if (AddressMap.VIDEO_RAM_START <= address && address < AddressMap.VIDEO_RAM_END) {
             vRam.write(address - AddressMap.VIDEO_RAM_START, value);
-        else if (AddressMap.OAM_START <= address && address < AddressMap.OAM_END)
+            tiles.invalidate(address - AddressMap.VIDEO_RAM_START);
+            mapLines.invalidate(address - AddressMap.VIDEO_RAM_START);
+        }
+        else if (AddressMap.OAM_START <= address && address < AddressMap.OAM_END) {
             oamRam.write(address - AddressMap.OAM_START, value);
+            sprites.invalidate(address - AddressMap.OAM_START);
+        }
+    }
+
+    @Override
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        if (address < AddressMap.VIDEO_RAM_START || address + length > AddressMap.VIDEO_RAM_END)
+            return false;
+        vRam.copyTo(address - AddressMap.VIDEO_RAM_START, destination, offset, length);
+        return true;
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        return Bus.pageIntersects(page, AddressMap.REGS_LCDC_START, AddressMap.REGS_LCDC_END)
+                || Bus.pageIntersects(page, AddressMap.VIDEO_RAM_START, AddressMap.VIDEO_RAM_END)
+                || Bus.pageIntersects(page, AddressMap.OAM_START, AddressMap.OAM_END);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return AddressMap.REGS_LCDC_START <= address && address < AddressMap.REGS_LCDC_END;
     }
 
     @Override
@@ -199,17 +235,11 @@ public final class LcdController implements Component, Clocked {
         System.arraycopy(vRam.getData(), 0, state, baseIndex, vRam.size());
         baseIndex += vRam.size();
 
-        for (int i = 0 ; i < Reg.ALL.size() ; ++i)
-            state[baseIndex + i] = (byte) vregs.get(Reg.ALL.get(i));
-        baseIndex += Reg.ALL.size();
+        for (int i = 0 ; i < REGS_COUNT ; ++i)
+            state[baseIndex + i] = (byte) vregs[i];
+        baseIndex += REGS_COUNT;
 
-        byte[] img;
-        try {
-            img = ImageConverter.toByteArray(nextImageBuilder.build());
-        } catch (IOException e) {
-            img = new byte[IMAGE_SIZE];
-            e.printStackTrace();
-        }
+        byte[] img = ImageConverter.toByteArray(nextImageBuilder.build());
         System.arraycopy(img, 0, state, baseIndex, IMAGE_SIZE);
         return state;
     }
@@ -227,6 +257,7 @@ public final class LcdController implements Component, Clocked {
         for (int i = 0 ; i < Integer.BYTES ; ++i)
             copyIndex |= Byte.toUnsignedInt(state[baseIndex + i]) << (i * Byte.SIZE);
         baseIndex += Integer.BYTES;
+        copyEndCycle = NO_BULK_COPY;
 
         winY = 0;
         for (int i = 0 ; i < Integer.BYTES ; ++i)
@@ -240,13 +271,16 @@ public final class LcdController implements Component, Clocked {
 
         System.arraycopy(state, baseIndex, oamRam.getData(), 0, oamRam.size());
         baseIndex += oamRam.size();
+        sprites.invalidateAll();
 
         System.arraycopy(state, baseIndex, vRam.getData(), 0, vRam.size());
         baseIndex += vRam.size();
+        tiles.invalidateAll();
+        mapLines.invalidateAll();
 
-        for (int i = 0 ; i < Reg.ALL.size() ; ++i)
-            vregs.set(Reg.ALL.get(i), Byte.toUnsignedInt(state[baseIndex + i]));
-        baseIndex += Reg.ALL.size();
+        for (int i = 0 ; i < REGS_COUNT ; ++i)
+            vregs[i] = Byte.toUnsignedInt(state[baseIndex + i]);
+        baseIndex += REGS_COUNT;
 
         byte[] img = Arrays.copyOfRange(state, baseIndex, baseIndex + IMAGE_SIZE);
         nextImageBuilder = ImageConverter.builderFromByteArray(img, LCD_WIDTH, LCD_HEIGHT);
@@ -256,13 +290,13 @@ public final class LcdController implements Component, Clocked {
 
     @Override
     public void cycle(long cycle) {
-        if (isHalted && vregs.testBit(Reg.LCDC, Lcdc.LCD_STATUS)) {
+        if (isHalted && Bits.test(vregs[LCDC], Lcdc.LCD_STATUS)) {
             isHalted = false;
             nextNonIdleCycle = cycle;
         }
         
         if (copyRequired)
-            copyOamByte();
+            copyOam(cycle);
 
         if (isHalted || cycle < nextNonIdleCycle)
             return;
@@ -270,13 +304,42 @@ public final class LcdController implements Component, Clocked {
         reallyCycle();
     }
 
+    @Override
+    public void cycleRange(long start, long end) {
+        Clocked.super.cycleRange(start, end);
+        // Keeps the progress of a bulk copy up to date, for saveState()
+        if (copyRequired && copyEndCycle != NO_BULK_COPY)
+            copyOam(end - 1);
+    }
+
+    @Override
+    public long nextEventCycle(long cycle) {
+        if (copyRequired && copyEndCycle == NO_BULK_COPY)
+            return cycle + 1;
+        long next;
+        if (isHalted)
+            next = Bits.test(vregs[LCDC], Lcdc.LCD_STATUS) ? cycle + 1 : Long.MAX_VALUE;
+        else
+            next = Math.max(nextNonIdleCycle, cycle + 1);
+        return copyRequired ? Math.min(next, copyEndCycle) : next;
+    }
+
+    @Override
+    public long nextInterruptCycle(long cycle) {
+        // Without STAT interruptions, only the entry in VBlank requests one
+        if (copyRequired || isHalted || (vregs[STAT] & STAT_INTERRUPTS) != 0)
+            return nextEventCycle(cycle);
+        return Math.max(nextVBlankCycle(), cycle + 1);
+    }
+
     private void reallyCycle() {
-        int nextLine = vregs.get(Reg.LY);
+        int nextLine = vregs[LY];
         Mode nextMode = getMode();
         switch (getMode()) {
         case MODE2:
             nextMode = Mode.MODE3;
-            nextImageBuilder.setLine(nextLine, createNewLine());
+            drawNewLine();
+            compositor.copyTo(nextImageBuilder, nextLine);
             break;
         case MODE3:
             nextMode = Mode.MODE0;
@@ -295,7 +358,7 @@ public final class LcdController implements Component, Clocked {
             if (nextLine >= LY_OVERFLOW) {
                 nextLine = 0;
                 nextMode = Mode.MODE2;
-                nextImageBuilder = new LcdImage.Builder(LCD_WIDTH, LCD_HEIGHT);
+                nextImageBuilder.clear();
             }
             break;
         default:
@@ -303,13 +366,33 @@ public final class LcdController implements Component, Clocked {
         }
         setMode(nextMode);
         nextNonIdleCycle += nextMode.duration();
-        writeToLycLy(Reg.LY, nextLine);
+        writeToLycLy(LY, nextLine);
+    }
+
+    private void copyOam(long cycle) {
+        if (copyIndex == 0 && copyEndCycle == NO_BULK_COPY && bus.readBlock(
+                vregs[DMA] << Byte.SIZE, oamRam.getData(), 0, AddressMap.OAM_RAM_SIZE)) {
+            copyEndCycle = cycle + AddressMap.OAM_RAM_SIZE;
+            sprites.invalidateAll();
+        }
+
+        if (copyEndCycle == NO_BULK_COPY) {
+            copyOamByte();
+        } else if (cycle < copyEndCycle) {
+            // Every byte is already copied, only the duration of the transfer remains
+            copyIndex = (int) (cycle - copyEndCycle) + AddressMap.OAM_RAM_SIZE + 1;
+        } else {
+            copyRequired = false;
+            copyIndex = 0;
+            copyEndCycle = NO_BULK_COPY;
+        }
     }
 
     private void copyOamByte() {
         if (copyIndex < AddressMap.OAM_RAM_SIZE) {
-            final int srcAddress = vregs.get(Reg.DMA) << Byte.SIZE;
+            final int srcAddress = vregs[DMA] << Byte.SIZE;
             oamRam.write(copyIndex, bus.read(srcAddress + copyIndex));
+            sprites.invalidate(copyIndex);
             ++copyIndex;
         } else {
             copyRequired = false;
@@ -317,77 +400,46 @@ public final class LcdController implements Component, Clocked {
         }
     }
 
-    private LcdImageLine createNewLine() {
-        int ly = vregs.get(Reg.LY);
-        int bgLineIndex = (vregs.get(Reg.SCY) + ly) % ALL_TILES_SIZE;
-        LcdImageLine lcdLine = backgroundLine(bgLineIndex);
-        lcdLine = addWindowLine(lcdLine, ly);
-        lcdLine = addSpriteLines(lcdLine, ly);
-        return lcdLine;
+    private void drawNewLine() {
+        int ly = vregs[LY];
+        int bgLineIndex = (vregs[SCY] + ly) % ALL_TILES_SIZE;
+        compositor.clear();
+        drawBackgroundLine(bgLineIndex);
+        drawWindowLine(ly);
+        drawSpriteLines(ly);
     }
 
 
     /* Drawing Methods */
 
-    private LcdImageLine backgroundLine(int line) {
-        if (vregs.testBit(Reg.LCDC, Lcdc.BG))
-            return computeBackgroundLine(line);
-        return BLANK_LINE;
+    private void drawBackgroundLine(int line) {
+        if (Bits.test(vregs[LCDC], Lcdc.BG))
+            compositor.setBackground(mapLine(line, Lcdc.BG_AREA), vregs[SCX], (byte) vregs[BGP]);
     }
-    private LcdImageLine addWindowLine(LcdImageLine lcdLine, int line) {
-        if (windowIsOn() && line >= vregs.get(Reg.WY)) {
-            LcdImageLine winLine = computeWindowLine(winY);
-            lcdLine = lcdLine.join(winLine, wx());
+    private void drawWindowLine(int line) {
+        if (windowIsOn() && line >= vregs[WY]) {
+            compositor.joinWindow(mapLine(winY, Lcdc.WIN_AREA), wx(), (byte) vregs[BGP]);
             winY = (winY + 1) % ALL_TILES_SIZE;
         }
-        return lcdLine;
     }
-    private LcdImageLine addSpriteLines(LcdImageLine lcdLine, int line) {
-        if (vregs.testBit(Reg.LCDC, Lcdc.OBJ)) {
-            LcdImageLine bg = computeSpriteLine(line, true);
-            LcdImageLine fg = computeSpriteLine(line, false);
-
-            BitVector opacityMask = lcdLine.opacity().or(bg.opacity().not());
-            return bg.below(lcdLine, opacityMask).below(fg);
+    private void drawSpriteLines(int line) {
+        if (Bits.test(vregs[LCDC], Lcdc.OBJ)) {
+            int count = sprites.spritesOnLine(line, spriteHeight(), lineSprites);
+            for (int i = 0 ; i < count ; ++i) {
+                int sprite = lineSprites[i];
+                boolean behind = Bits.test(spriteData(sprite, SpriteData.ATTRIBUTES), SpriteAttributes.BEHIND_BG);
+                compositor.addSprite(behind, getMsbLsbSprite(sprite, line),
+                        spriteData(sprite, SpriteData.X), spritePalette(sprite));
+            }
+            compositor.mergeSprites();
         }
-        return lcdLine;
     }
 
-    private LcdImageLine computeLine(int line, Bit bgOrWin_area) {
-        LcdImageLine.Builder lcdB = new LcdImageLine.Builder(ALL_TILES_SIZE);
-        for (int x = 0 ; x < ALL_TILES_SIZE / Byte.SIZE ; ++x) {
-            int id = getIdTile(x, line / TILE_SIZE, bgOrWin_area);
-            int msb_lsb = readTileMSBLSB(id, line % TILE_SIZE);
-            lcdB.setBytes(x, Bits.extract(msb_lsb, Byte.SIZE, Byte.SIZE), Bits.clip(Byte.SIZE, msb_lsb));
-        }
-        return lcdB.build();
-    }
-    private LcdImageLine computeBackgroundLine(int line) {
-        LcdImageLine l = computeLine(line, Lcdc.BG_AREA);
-        return l.extractWrapped(vregs.get(Reg.SCX), LCD_WIDTH)
-                .mapColors((byte) vregs.get(Reg.BGP));
-    }
-    private LcdImageLine computeWindowLine(int line) {
-        LcdImageLine l = computeLine(line, Lcdc.WIN_AREA);
-        return l.extractWrapped(0, LCD_WIDTH).shift(wx())
-                .mapColors((byte) vregs.get(Reg.BGP));
-    }
-    private LcdImageLine computeSpriteLine(int line, boolean background) {
-        LcdImageLine l = BLANK_LINE;
-        
-        for (int sprite : spritesIntersectingLine(line)) {
-            if (Bits.test(spriteData(sprite, SpriteData.ATTRIBUTES), SpriteAttributes.BEHIND_BG) == background) {
-                int msb_lsb = getMsbLsbSprite(sprite, line);
-                
-                LcdImageLine singleSpriteLine = new LcdImageLine.Builder(LCD_WIDTH)
-                        .setBytes(0, Bits.extract(msb_lsb, Byte.SIZE, Byte.SIZE), Bits.clip(Byte.SIZE, msb_lsb))
-                        .build();
-                singleSpriteLine = singleSpriteLine.shift(-spriteData(sprite, SpriteData.X))
-                        .mapColors(spritePalette(sprite));
-                l = singleSpriteLine.below(l);
-            }
-        }
-        return l;
+    private int[] mapLine(int line, Bit bgOrWin_area) {
+        // The LCDC bits choosing the map and the tile source select the cached line
+        int area = Bits.test(vregs[LCDC], bgOrWin_area) ? 1 : 0;
+        int source = Bits.test(vregs[LCDC], Lcdc.TILE_SOURCE) ? 1 : 0;
+        return mapLines.line(area, source, line);
     }
     
     /* Sprite Methods */
@@ -405,10 +457,8 @@ public final class LcdController implements Component, Clocked {
         address += BYTES_PER_TILE_LINE * trueLine;
         
         // Si flipH : on inverse pas, car il faut inverser les bits pour afficher normalement
-        int msb = flipH ? read(address + 1) : Bits.reverse8(read(address + 1));
-        int lsb = flipH ? read(address) : Bits.reverse8(read(address));
-        
-        return Bits.make16(msb, lsb);
+        int row = tileRowIndex(address);
+        return flipH ? tiles.flippedRow(row) : tiles.row(row);
     }
     
     private int spriteData(int spriteId, SpriteData data) {
@@ -420,68 +470,60 @@ public final class LcdController implements Component, Clocked {
         return info;
     }
     private int spriteHeight() {
-        return vregs.testBit(Reg.LCDC, Lcdc.OBJ_SIZE) ? 2 * TILE_SIZE : TILE_SIZE;
+        return Bits.test(vregs[LCDC], Lcdc.OBJ_SIZE) ? 2 * TILE_SIZE : TILE_SIZE;
     }
     private byte spritePalette(int spriteId) {
         return (byte) (Bits.test(spriteData(spriteId, SpriteData.ATTRIBUTES), SpriteAttributes.PALETTE) ?
-                vregs.get(Reg.OBP1) : vregs.get(Reg.OBP0));
+                vregs[OBP1] : vregs[OBP0]);
     }
     
-    private int[] spritesIntersectingLine(int line) {
-        final int height = spriteHeight();
-        
-        int[] packedSprites = new int[MAX_SPRITES_PER_LINE];
-
-        int sprites = 0;
-        for (int i = 0 ; i < TOTAL_SPRITES && sprites < MAX_SPRITES_PER_LINE ; ++i) {
-            int y = spriteData(i, SpriteData.Y);
-            if (y <= line && line < y + height) {
-                int x = spriteData(i, SpriteData.X) - OFFSET_SPRITE_X;
-                packedSprites[sprites] = (x << Byte.SIZE) | i;
-                ++sprites;
-            }
-        }
-        Arrays.sort(packedSprites, 0, sprites);
-        
-        int[] selectedSprites = new int[sprites];
-        for (int i = 0 ; i < sprites ; ++i)
-            selectedSprites[i] = Bits.clip(Byte.SIZE, packedSprites[i]);
-        return selectedSprites;
-    }
-
     /* General Utilities */
 
-    private int getIdTile(int xTile, int yTile, Bit b) {
-        int id = xTile + yTile * NB_TILES;
-        int area = vregs.testBit(Reg.LCDC, b) ? 1 : 0;
-        return read(AddressMap.BG_DISPLAY_DATA[area] + id);
-    }
-    private int readTileMSBLSB(int idTile, int line) {
-        boolean tile_source = vregs.testBit(Reg.LCDC, Lcdc.TILE_SOURCE);
-        int address = (!tile_source && idTile < 0x80 ? 0x9000 : 0x8000)
-                + idTile * BYTES_PER_TILE + line * BYTES_PER_TILE_LINE;
-
-        return Bits.make16(Bits.reverse8(read(address + 1)), Bits.reverse8(read(address)));
+    private int tileRowIndex(int address) {
+        return (address - AddressMap.VIDEO_RAM_START) / BYTES_PER_TILE_LINE;
     }
 
     private int wx() {
-        return vregs.get(Reg.WX) + OFFSET_WX;
+        return vregs[WX] + OFFSET_WX;
     }
     private boolean windowIsOn() {
         int wx = wx();
-        return vregs.testBit(Reg.LCDC,  Lcdc.WIN) && 0 <= wx && wx < LCD_WIDTH;
+        return Bits.test(vregs[LCDC], Lcdc.WIN) && 0 <= wx && wx < LCD_WIDTH;
+    }
+
+    private long nextVBlankCycle() {
+        int line = vregs[LY];
+        long lineEnd;
+        switch (getMode()) {
+        case MODE2:
+            lineEnd = nextNonIdleCycle + Mode.MODE3.duration() + Mode.MODE0.duration();
+            break;
+        case MODE3:
+            lineEnd = nextNonIdleCycle + Mode.MODE0.duration();
+            break;
+        case MODE0:
+            lineEnd = nextNonIdleCycle;
+            break;
+        case MODE1:
+            line = -1;
+            lineEnd = nextNonIdleCycle + (long) (LY_OVERFLOW - 1 - vregs[LY]) * LINE_CYCLES;
+            break;
+        default:
+            throw new Error();
+        }
+        return lineEnd + (long) Math.max(LCD_HEIGHT - 1 - line, 0) * LINE_CYCLES;
     }
 
     private Mode getMode() {
-        return Mode.ALL.get(Bits.extract(vregs.get(Reg.STAT), Stat.MODE0.index(), 2));
+        return Mode.ALL.get(Bits.extract(vregs[STAT], Stat.MODE0.index(), 2));
     }
     private void setMode(Mode mode) {
         if (!getMode().equals(mode)) {
-            vregs.set(Reg.STAT, vregs.get(Reg.STAT) & ~(0b11) | mode.ordinal());
+            vregs[STAT] = vregs[STAT] & ~(0b11) | mode.ordinal();
 
-            if ((mode == Mode.MODE0 && vregs.testBit(Reg.STAT, Stat.INT_MODE0)) || 
-                    (mode == Mode.MODE1 && vregs.testBit(Reg.STAT, Stat.INT_MODE1)) || 
-                    (mode == Mode.MODE2 && vregs.testBit(Reg.STAT, Stat.INT_MODE2)))
+            if ((mode == Mode.MODE0 && Bits.test(vregs[STAT], Stat.INT_MODE0)) || 
+                    (mode == Mode.MODE1 && Bits.test(vregs[STAT], Stat.INT_MODE1)) || 
+                    (mode == Mode.MODE2 && Bits.test(vregs[STAT], Stat.INT_MODE2)))
                 cpu.requestInterrupt(Interrupt.LCD_STAT);
 
             if (mode == Mode.MODE1)
@@ -492,55 +534,57 @@ public final class LcdController implements Component, Clocked {
 
     /* Registers IO Methods */
 
-    private Reg addressToReg(int address) {
-        return Reg.ALL.get(address - AddressMap.REGS_LCDC_START);
+    private int addressToReg(int address) {
+        return address - AddressMap.REGS_LCDC_START;
     }
     private void writeToReg(int address, int value) {
-        Reg reg = addressToReg(address);
+        int reg = addressToReg(address);
         switch (reg) {
         case LCDC:
-            vregs.set(Reg.LCDC, value);
-            if (!vregs.testBit(Reg.LCDC, Lcdc.LCD_STATUS)) {
+            vregs[LCDC] = value;
+            if (!Bits.test(vregs[LCDC], Lcdc.LCD_STATUS)) {
                 setMode(Mode.MODE0);
-                writeToLycLy(Reg.LY, 0);
+                writeToLycLy(LY, 0);
                 isHalted = true;
             }
             break;
         case STAT:
-            int lsb = Bits.clip(3, vregs.get(Reg.STAT));
+            int lsb = Bits.clip(3, vregs[STAT]);
             int msb = Bits.extract(value, 3, Byte.SIZE - 3) << 3;
-            vregs.set(Reg.STAT, msb | lsb);
+            vregs[STAT] = msb | lsb;
             break;
         case LYC:
-            writeToLycLy(Reg.LYC, value);
+            writeToLycLy(LYC, value);
             break;
         case LY:
             break;
         case DMA:
+            // A transfer restarted during a bulk copy goes on byte by byte
             copyRequired = true;
-            vregs.set(Reg.DMA, value);
+            copyEndCycle = NO_BULK_COPY;
+            vregs[DMA] = value;
             break;
         default:
-            vregs.set(reg, value);
+            vregs[reg] = value;
             break;  
         }
     }
 
-    private void writeToLycLy(Reg lycOrLy, int val) {
-        if (lycOrLy ==  Reg.LYC) {
-            if (val != vregs.get(Reg.LYC)) {
-                vregs.set(Reg.LYC, val);
-                boolean equal = vregs.get(Reg.LYC) == vregs.get(Reg.LY);
-                vregs.setBit(Reg.STAT, Stat.LYC_EQ_LY, equal);
-                if (equal && vregs.testBit(Reg.STAT, Stat.INT_LYC))
+    private void writeToLycLy(int lycOrLy, int val) {
+        if (lycOrLy ==  LYC) {
+            if (val != vregs[LYC]) {
+                vregs[LYC] = val;
+                boolean equal = vregs[LYC] == vregs[LY];
+                vregs[STAT] = Bits.set(vregs[STAT], Stat.LYC_EQ_LY.index(), equal);
+                if (equal && Bits.test(vregs[STAT], Stat.INT_LYC))
                     cpu.requestInterrupt(Interrupt.LCD_STAT);
             }
-        } else if (lycOrLy == Reg.LY) {
-            if (val != vregs.get(Reg.LY)) {
-                vregs.set(Reg.LY, val);
-                boolean equal = vregs.get(Reg.LYC) == vregs.get(Reg.LY);
-                vregs.setBit(Reg.STAT, Stat.LYC_EQ_LY, equal);
-                if (equal && vregs.testBit(Reg.STAT, Stat.INT_LYC))
+        } else if (lycOrLy == LY) {
+            if (val != vregs[LY]) {
+                vregs[LY] = val;
+                boolean equal = vregs[LYC] == vregs[LY];
+                vregs[STAT] = Bits.set(vregs[STAT], Stat.LYC_EQ_LY.index(), equal);
+                if (equal && Bits.test(vregs[STAT], Stat.INT_LYC))
                     cpu.requestInterrupt(Interrupt.LCD_STAT);
             }
 
@@ -1,91 +1,130 @@
 package ch.epfl.javaboy.component.lcd;
 
-import java.util.ArrayList;
-import java.util.List;
+import ch.epfl.javaboy.Preconditions;
+
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * Represents a Image computed
- * by the LcdController
+ * by the LcdController.
+ * The pixels are packed 2 bits per pixel : each
+ * line is stored as the ints of its msbs followed
+ * by the ints of its lsbs, the pixel x of a line
+ * being the bit x % 32 of its int x / 32
  * @author Toufi
  */
 @SuppressWarnings("WeakerAccess")
 public final class LcdImage {
-    
+
     /**
      * Builder for an LcdImage
      * @author Toufi
      */
     static final class Builder {
-        private final ArrayList<LcdImageLine> lines;
-        
+        private final int width, height;
+        private final int[] planes;
+
         /**
          * Constructs a new LcdImage.Builder,
          * with a blank LcdImage of the given dimensions
          * @param width (int) width of the image to build
          * @param height (int) height of the image to build
+         * @throws IllegalArgumentException
+         * if width is not a positive multiple of 32,
+         * or if height is negative
          */
         Builder(int width, int height) {
-            lines = new ArrayList<>(height);
-            for (int i = 0 ; i < height ; ++i)
-                lines.add(new LcdImageLine(width));
+            Preconditions.checkArgument(width > 0 && width % Integer.SIZE == 0 && height >= 0);
+            this.width = width;
+            this.height = height;
+            planes = new int[height * 2 * (width / Integer.SIZE)];
         }
-        
+
         /**
          * Sets the line at the given index
          * @param y (int) index of the line
          * @param line (LcdImageLine) the line to set
          * @return (Builder) this builder
+         * @throws IllegalArgumentException
+         * if the line does not have the width of the image
          */
         @SuppressWarnings("UnusedReturnValue")
         Builder setLine(int y, LcdImageLine line) {
             Objects.requireNonNull(line);
-            lines.set(y, line);
+            Preconditions.checkArgument(line.size() == width);
+            Objects.checkIndex(y, height);
+            final int words = width / Integer.SIZE;
+            packBytes(line.msb().getBytes(), planes, 2 * y * words);
+            packBytes(line.lsb().getBytes(), planes, (2 * y + 1) * words);
+            return this;
+        }
+
+        /**
+         * Sets the line at the given index from
+         * the ints of its msbs and of its lsbs
+         * (width / 32 of each, see BitVector)
+         * @param y (int) index of the line
+         * @param msb (int[]) msbs of the line
+         * @param lsb (int[]) lsbs of the line
+         * @return (Builder) this builder
+         */
+        @SuppressWarnings("UnusedReturnValue")
+        Builder setLine(int y, int[] msb, int[] lsb) {
+            Objects.checkIndex(y, height);
+            final int words = width / Integer.SIZE;
+            System.arraycopy(msb, 0, planes, 2 * y * words, words);
+            System.arraycopy(lsb, 0, planes, (2 * y + 1) * words, words);
             return this;
         }
-        
+
         /**
-         * Builds the LcdImage
+         * Blanks every line, for the
+         * builder to be used again
+         */
+        void clear() {
+            Arrays.fill(planes, 0);
+        }
+
+        /**
+         * Builds the LcdImage, from
+         * a copy of the lines set so far
          * @return (LcdImage) the LcdImage built
          */
         LcdImage build() {
-            return new LcdImage(lines);
+            return new LcdImage(width, height, planes.clone());
+        }
+
+        private static void packBytes(byte[] bytes, int[] words, int from) {
+            Arrays.fill(words, from, from + bytes.length / Integer.BYTES, 0);
+            for (int i = 0 ; i < bytes.length ; ++i)
+                words[from + i / Integer.BYTES] |= Byte.toUnsignedInt(bytes[i]) << (i % Integer.BYTES * Byte.SIZE);
         }
     }
-    
-    private final List<LcdImageLine> lines;
-    
-    /**
-     * Constructs a new LcdImage from
-     * the given list of lines
-     * @param lines (ArrayList<LcdImageLine>) the list of
-     * LcdImageLine used to construct the LcdImage
-     */
-    private LcdImage(ArrayList<LcdImageLine> lines) {
-        this.lines = List.copyOf(lines);
+
+    private final int width, height;
+    private final int[] planes;
+
+    private LcdImage(int width, int height, int[] planes) {
+        this.width = width;
+        this.height = height;
+        this.planes = planes;
     }
 
-    /**
-     * Returns an unmodifiable List of
-     * the LcdImageLine composing the LcdImage
-     * @return (List<LcdImageLine>) list of LcdImageLine
-     */
-    List<LcdImageLine> getLines() { return lines; }
-    
     /**
      * Returns the width of the LcdImage
      * @return (int) image width
      */
-    public int width() { return lines.isEmpty() ? 0 : lines.get(0).size(); }
-    
+    public int width() { return width; }
+
     /**
      * Returns the height of the LcdImage
      * @return (int) image height
      */
     public int height() {
-        return lines.size();
+        return height;
     }
-    
+
     /**
      * Returns the color of the pixel
      * at the given position
@@ -93,19 +132,58 @@ public final class LcdImage {
      * @param x (int) x-axis position
      * @param y (int) y-axis position
      * @return (int) color of the pixel
+     * @throws IndexOutOfBoundsException
+     * if the position is not in the image
      */
     public int getColor(int x, int y) {
-        LcdImageLine l = lines.get(y);
-        return (l.lsb().testBit(x) ? 0b01 : 0b00) 
-                | (l.msb().testBit(x) ? 0b10 : 0b00);
+        Objects.checkIndex(x, width);
+        Objects.checkIndex(y, height);
+        final int words = width / Integer.SIZE;
+        final int index = 2 * y * words + x / Integer.SIZE;
+        final int bit = x % Integer.SIZE;
+        return (((planes[index] >>> bit) & 1) << 1) | ((planes[index + words] >>> bit) & 1);
+    }
+
+    /**
+     * Copies the ints of the msbs and of the lsbs
+     * of the line at the given index into the given
+     * arrays (width / 32 of each, see BitVector)
+     * @param y (int) index of the line
+     * @param msb (int[]) array receiving the msbs
+     * @param lsb (int[]) array receiving the lsbs
+     * @throws IndexOutOfBoundsException
+     * if the line is not in the image, or
+     * if the arrays are too small
+     */
+    public void getLine(int y, int[] msb, int[] lsb) {
+        Objects.checkIndex(y, height);
+        final int words = width / Integer.SIZE;
+        System.arraycopy(planes, 2 * y * words, msb, 0, words);
+        System.arraycopy(planes, (2 * y + 1) * words, lsb, 0, words);
+    }
+
+    /**
+     * Returns the int at the given index in the
+     * planes of the image (the ints of the msbs of
+     * line 0, then those of its lsbs, then those
+     * of line 1...)
+     * @param index (int) index of the int
+     * @return (int) 32 bits of the planes
+     */
+    int planesInt(int index) {
+        return planes[index];
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof LcdImage && lines.equals(((LcdImage)obj).lines);
+        if (obj instanceof LcdImage) {
+            LcdImage that = (LcdImage) obj;
+            return width == that.width && height == that.height && Arrays.equals(planes, that.planes);
+        }
+        return false;
     }
     @Override
     public int hashCode() {
-        return lines.hashCode();
+        return Objects.hash(width, height, Arrays.hashCode(planes));
     }
 }
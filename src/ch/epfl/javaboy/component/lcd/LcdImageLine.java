@@ -57,6 +57,43 @@ public final class LcdImageLine {
     }
 
     private final static byte IDENTITY = (byte) 0b11100100;
+    private final static int COLORS = 4;
+
+    // For each color map, the truth tables giving the new msb and lsb of
+    // a pixel from its former msb and lsb (see BitVector.combine())
+    private final static int[] MSB_FUNCTIONS = functionsOfBit(1);
+    private final static int[] LSB_FUNCTIONS = functionsOfBit(0);
+
+    /**
+     * Returns the truth table giving the new msb of
+     * a pixel from its former msb and lsb, when applying
+     * the given color map (see mapColors())
+     * @param colors (byte) color map
+     * @return (int) truth table (see Bits.combine())
+     */
+    static int msbFunction(byte colors) {
+        return MSB_FUNCTIONS[Byte.toUnsignedInt(colors)];
+    }
+
+    /**
+     * Returns the truth table giving the new lsb of
+     * a pixel from its former msb and lsb, when applying
+     * the given color map (see mapColors())
+     * @param colors (byte) color map
+     * @return (int) truth table (see Bits.combine())
+     */
+    static int lsbFunction(byte colors) {
+        return LSB_FUNCTIONS[Byte.toUnsignedInt(colors)];
+    }
+
+    private static int[] functionsOfBit(int bit) {
+        int[] functions = new int[1 << Byte.SIZE];
+        for (int colors = 0 ; colors < functions.length ; ++colors)
+            for (int color = 0 ; color < COLORS ; ++color)
+                if (Bits.test(Bits.extract(colors, 2 * color, 2), bit))
+                    functions[colors] |= 1 << color;
+        return functions;
+    }
 
     private final BitVector msb, lsb, opacity;
     
@@ -149,27 +186,8 @@ public final class LcdImageLine {
         if (colors == IDENTITY)
             return this;
 
-        final int LENGTH = 4;
-        BitVector[] bitsByColor = {
-                msb.or(lsb).not(),      // 00 
-                msb.not().and(lsb),     // 01
-                msb.and(lsb.not()),     // 10
-                msb.and(lsb)            // 11
-        };
-        int [] colorMap = new int[LENGTH];
-        for (int i = 0 ; i < LENGTH ; ++i)
-            colorMap[i] = Bits.extract(colors, 2 * i, 2);
-
-        final BitVector bits1 = new BitVector(size(), true);
-        final BitVector bits0 = new BitVector(size(), false);
-
-        BitVector m = bitsByColor[0].and(Bits.test(colorMap[0], 1) ? bits1 : bits0);
-        BitVector l = bitsByColor[0].and(Bits.test(colorMap[0], 0) ? bits1 : bits0);
-        for (int i = 1 ; i < LENGTH ; ++i) {
-            m = m.or(bitsByColor[i].and(Bits.test(colorMap[i], 1) ? bits1 : bits0));
-            l = l.or(bitsByColor[i].and(Bits.test(colorMap[i], 0) ? bits1 : bits0));
-        }
-        return new LcdImageLine(m, l, opacity);
+        return new LcdImageLine(msb.combine(lsb, msbFunction(colors)),
+                msb.combine(lsb, lsbFunction(colors)), opacity);
     }
     
     /**
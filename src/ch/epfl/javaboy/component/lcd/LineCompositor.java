@@ -0,0 +1,206 @@
+package ch.epfl.javaboy.component.lcd;
+
+import java.util.Arrays;
+
+import ch.epfl.javaboy.bits.Bits;
+
+/**
+ * Composes the lines drawn by the LcdController
+ * in place, on planes of ints reused from one line
+ * to the next (see BitVector for their layout).
+ * Gives exactly the lines that the operations
+ * of LcdImageLine would give
+ * @author Toufi
+ */
+final class LineCompositor {
+
+    private static final int WIDTH = LcdController.LCD_WIDTH;
+    private static final int WORDS = WIDTH / Integer.SIZE;
+    private static final int MAP_WORDS = MapLineCache.MAP_WORDS;
+    private static final int TRUTH_TABLE_SIZE = 4;
+
+    // The line being composed
+    private final int[] msb, lsb, opacity;
+    // The sprites behind the background, and those in front of it
+    private final int[] backMsb, backLsb, backOpacity;
+    private final int[] frontMsb, frontLsb, frontOpacity;
+    // Truth tables of the current color map (see Bits.combine()),
+    // each of their bits spread over a whole int
+    private final int[] msbMasks, lsbMasks;
+
+    /**
+     * Constructs a new LineCompositor,
+     * with a blank line
+     */
+    LineCompositor() {
+        msb = new int[WORDS];
+        lsb = new int[WORDS];
+        opacity = new int[WORDS];
+        backMsb = new int[WORDS];
+        backLsb = new int[WORDS];
+        backOpacity = new int[WORDS];
+        frontMsb = new int[WORDS];
+        frontLsb = new int[WORDS];
+        frontOpacity = new int[WORDS];
+        msbMasks = new int[TRUTH_TABLE_SIZE];
+        lsbMasks = new int[TRUTH_TABLE_SIZE];
+    }
+
+    /**
+     * Blanks the line, and forgets the sprites
+     */
+    void clear() {
+        Arrays.fill(msb, 0);
+        Arrays.fill(lsb, 0);
+        Arrays.fill(opacity, 0);
+        Arrays.fill(backMsb, 0);
+        Arrays.fill(backLsb, 0);
+        Arrays.fill(backOpacity, 0);
+        Arrays.fill(frontMsb, 0);
+        Arrays.fill(frontLsb, 0);
+        Arrays.fill(frontOpacity, 0);
+    }
+
+    /**
+     * Sets the line to the given line of a map,
+     * wrapped from the given pixel, with the given
+     * color map (like extractWrapped() then mapColors())
+     * @param map (int[]) planes of the line of the map (see MapLineCache)
+     * @param start (int) index of the first pixel in the map
+     * @param colors (byte) color map
+     */
+    void setBackground(int[] map, int start, byte colors) {
+        setColors(colors);
+        for (int i = 0 ; i < WORDS ; ++i) {
+            int m = wrappedWord(map, 0, start + i * Integer.SIZE);
+            int l = wrappedWord(map, MAP_WORDS, start + i * Integer.SIZE);
+            msb[i] = combine(msbMasks, m, l);
+            lsb[i] = combine(lsbMasks, m, l);
+            opacity[i] = m | l;
+        }
+    }
+
+    /**
+     * Joins the line with the first WIDTH pixels of the given
+     * line of a map, shifted of the given distance, with the
+     * given color map, at the given index (like extractWrapped(),
+     * shift() and mapColors(), then join())
+     * @param map (int[]) planes of the line of the map (see MapLineCache)
+     * @param start (int) distance of the shift and index of the join
+     * @param colors (byte) color map
+     * @throws IllegalArgumentException
+     * if start is not a valid index of the line
+     */
+    void joinWindow(int[] map, int start, byte colors) {
+        if (!(0 <= start && start < WIDTH))
+            throw new IllegalArgumentException();
+        setColors(colors);
+        for (int i = 0 ; i < WORDS ; ++i) {
+            int m = zeroExtendedWord(map, 0, start + i * Integer.SIZE);
+            int l = zeroExtendedWord(map, MAP_WORDS, start + i * Integer.SIZE);
+            // The pixels of the window are those which are shifted out of the line
+            int mask = maskFrom(WIDTH - start - i * Integer.SIZE);
+            msb[i] = (mask & combine(msbMasks, m, l)) | (~mask & msb[i]);
+            lsb[i] = (mask & combine(lsbMasks, m, l)) | (~mask & lsb[i]);
+            opacity[i] |= mask;
+        }
+    }
+
+    /**
+     * Adds a sprite below those already added
+     * behind or in front of the background (like
+     * shift() and mapColors(), then below())
+     * @param behind (boolean) true if the sprite is behind the background
+     * @param msbLsb (int) 16 bits msb (8 MSBs) and lsb (8 LSBs) of the
+     * row of the sprite, its first pixel being the bit 0
+     * @param x (int) index of the first pixel of the sprite in the line
+     * @param colors (byte) color map
+     */
+    void addSprite(boolean behind, int msbLsb, int x, byte colors) {
+        int[] accMsb = behind ? backMsb : frontMsb;
+        int[] accLsb = behind ? backLsb : frontLsb;
+        int[] accOpacity = behind ? backOpacity : frontOpacity;
+        setColors(colors);
+        int spriteMsb = Bits.extract(msbLsb, Byte.SIZE, Byte.SIZE);
+        int spriteLsb = Bits.clip(Byte.SIZE, msbLsb);
+        for (int i = 0 ; i < WORDS ; ++i) {
+            int m = placedWord(spriteMsb, x - i * Integer.SIZE);
+            int l = placedWord(spriteLsb, x - i * Integer.SIZE);
+            int above = accOpacity[i];
+            accMsb[i] = (above & accMsb[i]) | (~above & combine(msbMasks, m, l));
+            accLsb[i] = (above & accLsb[i]) | (~above & combine(lsbMasks, m, l));
+            accOpacity[i] = above | m | l;
+        }
+    }
+
+    /**
+     * Places the line between the sprites behind the
+     * background and those in front of it (like below())
+     */
+    void mergeSprites() {
+        for (int i = 0 ; i < WORDS ; ++i) {
+            int mask = opacity[i] | ~backOpacity[i];
+            int m = (mask & msb[i]) | (~mask & backMsb[i]);
+            int l = (mask & lsb[i]) | (~mask & backLsb[i]);
+            int front = frontOpacity[i];
+            msb[i] = (front & frontMsb[i]) | (~front & m);
+            lsb[i] = (front & frontLsb[i]) | (~front & l);
+            opacity[i] = backOpacity[i] | mask | front;
+        }
+    }
+
+    /**
+     * Sets the composed line in the given image
+     * @param builder (LcdImage.Builder) builder of the image
+     * @param y (int) index of the line in the image
+     */
+    void copyTo(LcdImage.Builder builder, int y) {
+        builder.setLine(y, msb, lsb);
+    }
+
+    private void setColors(byte colors) {
+        spread(LcdImageLine.msbFunction(colors), msbMasks);
+        spread(LcdImageLine.lsbFunction(colors), lsbMasks);
+    }
+
+    private static void spread(int function, int[] masks) {
+        for (int i = 0 ; i < TRUTH_TABLE_SIZE ; ++i)
+            masks[i] = Bits.test(function, i) ? -1 : 0;
+    }
+
+    // Like Bits.combine(), with the truth table spread by spread()
+    private static int combine(int[] masks, int m, int l) {
+        return (~m & ~l & masks[0]) | (~m & l & masks[1]) | (m & ~l & masks[2]) | (m & l & masks[3]);
+    }
+
+    private static int wrappedWord(int[] planes, int offset, int start) {
+        int q = Math.floorDiv(start, Integer.SIZE), r = Math.floorMod(start, Integer.SIZE);
+        int low = planes[offset + Math.floorMod(q, MAP_WORDS)];
+        if (r == 0)
+            return low;
+        int high = planes[offset + Math.floorMod(q + 1, MAP_WORDS)];
+        return (low >>> r) | (high << (Integer.SIZE - r));
+    }
+
+    private static int zeroExtendedWord(int[] planes, int offset, int start) {
+        // Only the first WIDTH pixels of the map are part of the line
+        int q = Math.floorDiv(start, Integer.SIZE), r = Math.floorMod(start, Integer.SIZE);
+        int low = 0 <= q && q < WORDS ? planes[offset + q] : 0;
+        if (r == 0)
+            return low;
+        int high = 0 <= q + 1 && q + 1 < WORDS ? planes[offset + q + 1] : 0;
+        return (low >>> r) | (high << (Integer.SIZE - r));
+    }
+
+    private static int placedWord(int bits, int start) {
+        if (start <= -Byte.SIZE || start >= Integer.SIZE)
+            return 0;
+        return start >= 0 ? bits << start : bits >>> -start;
+    }
+
+    private static int maskFrom(int start) {
+        if (start <= 0)
+            return -1;
+        return start >= Integer.SIZE ? 0 : -1 << start;
+    }
+}
@@ -0,0 +1,133 @@
+package ch.epfl.javaboy.component.lcd;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import ch.epfl.javaboy.AddressMap;
+import ch.epfl.javaboy.bits.Bits;
+import ch.epfl.javaboy.component.memory.Ram;
+
+/**
+ * Represents a cache of the lines of the
+ * background and window maps, as drawn from the
+ * tiles, each line being drawn again only after
+ * the map or one of its tiles has been written
+ * @author Toufi
+ */
+final class MapLineCache {
+
+    /** Size of a map, in tiles and in pixels */
+    static final int MAP_TILES = 32, MAP_SIZE = MAP_TILES * Byte.SIZE;
+    /** Number of ints of each plane of a line */
+    static final int MAP_WORDS = MAP_SIZE / Integer.SIZE;
+
+    private static final int AREAS = AddressMap.BG_DISPLAY_DATA.length;
+    private static final int SOURCES = AddressMap.TILE_SOURCE.length;
+    private static final int BYTES_PER_TILE_LINE = 2;
+    private static final int BYTES_PER_TILE = BYTES_PER_TILE_LINE * Byte.SIZE;
+    private static final int SIGNED_TILES = 0x80;
+
+    private final Ram vRam;
+    private final TileCache tiles;
+    private final int[][][] lines;
+    private final boolean[][] drawn;
+    // For each area and tile source, the map rows which used each tile when
+    // they were drawn. Never cleared when a map changes, which only leads
+    // to drawing some lines again for nothing
+    private final int[][] tileUsers;
+
+    /**
+     * Constructs a cache of the map lines of
+     * the given video Ram and of its tiles
+     * @param vRam (Ram) the video Ram
+     * @param tiles (TileCache) the cache of the tiles of vRam
+     * @throws NullPointerException
+     * if vRam or tiles is null
+     */
+    MapLineCache(Ram vRam, TileCache tiles) {
+        this.vRam = Objects.requireNonNull(vRam);
+        this.tiles = Objects.requireNonNull(tiles);
+        lines = new int[AREAS * SOURCES][MAP_SIZE][2 * MAP_WORDS];
+        drawn = new boolean[AREAS * SOURCES][MAP_SIZE];
+        tileUsers = new int[AREAS * SOURCES][TileCache.TILES_COUNT];
+    }
+
+    /**
+     * Returns the given line of the given map,
+     * drawn with the given tile source, as the MAP_WORDS
+     * ints of its msbs followed by the MAP_WORDS ints
+     * of its lsbs (see BitVector). The array is owned
+     * by the cache and must not be modified
+     * @param area (int) index of the map (see AddressMap.BG_DISPLAY_DATA)
+     * @param source (int) index of the tile source (see AddressMap.TILE_SOURCE)
+     * @param line (int) index of the line, between 0 and MAP_SIZE (excluded)
+     * @return (int[]) planes of the line of MAP_SIZE pixels
+     */
+    int[] line(int area, int source, int line) {
+        int key = area * SOURCES + source;
+        if (!drawn[key][line]) {
+            drawLine(key, area, source, line);
+            drawn[key][line] = true;
+        }
+        return lines[key][line];
+    }
+
+    /**
+     * Tells the cache that the byte of the video
+     * Ram at the given index has been written
+     * @param index (int) index of the byte in the video Ram
+     */
+    void invalidate(int index) {
+        if (index < TileCache.TILES_SIZE) {
+            int tile = index / BYTES_PER_TILE;
+            int tileLine = index % BYTES_PER_TILE / BYTES_PER_TILE_LINE;
+            for (int key = 0 ; key < lines.length ; ++key) {
+                int rows = tileUsers[key][tile];
+                for (int row = 0 ; rows != 0 ; ++row, rows >>>= 1)
+                    if ((rows & 1) != 0)
+                        drawn[key][row * Byte.SIZE + tileLine] = false;
+            }
+        } else {
+            for (int area = 0 ; area < AREAS ; ++area) {
+                int mapIndex = index + AddressMap.VIDEO_RAM_START - AddressMap.BG_DISPLAY_DATA[area];
+                if (0 <= mapIndex && mapIndex < MAP_TILES * MAP_TILES) {
+                    int row = mapIndex / MAP_TILES;
+                    for (int source = 0 ; source < SOURCES ; ++source)
+                        Arrays.fill(drawn[area * SOURCES + source],
+                                row * Byte.SIZE, (row + 1) * Byte.SIZE, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells the cache that the whole
+     * video Ram may have been written
+     */
+    void invalidateAll() {
+        for (boolean[] d : drawn)
+            Arrays.fill(d, false);
+        for (int[] users : tileUsers)
+            Arrays.fill(users, 0);
+    }
+
+    private void drawLine(int key, int area, int source, int line) {
+        int row = line / Byte.SIZE;
+        int mapStart = AddressMap.BG_DISPLAY_DATA[area] - AddressMap.VIDEO_RAM_START + row * MAP_TILES;
+        int[] planes = lines[key][line];
+        Arrays.fill(planes, 0);
+        for (int x = 0 ; x < MAP_TILES ; ++x) {
+            int tile = tileIndex(vRam.read(mapStart + x), source);
+            tileUsers[key][tile] |= 1 << row;
+            int msb_lsb = tiles.row(tile * Byte.SIZE + line % Byte.SIZE);
+            int word = x / Integer.BYTES, shift = (x % Integer.BYTES) * Byte.SIZE;
+            planes[word] |= Bits.extract(msb_lsb, Byte.SIZE, Byte.SIZE) << shift;
+            planes[MAP_WORDS + word] |= Bits.clip(Byte.SIZE, msb_lsb) << shift;
+        }
+    }
+
+    private static int tileIndex(int id, int source) {
+        // With the first source, the ids below 0x80 are those of the last 128 tiles
+        return source == 0 && id < SIGNED_TILES ? id + 2 * SIGNED_TILES : id;
+    }
+}
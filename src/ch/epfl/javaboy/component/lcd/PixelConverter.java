@@ -0,0 +1,182 @@
+package ch.epfl.javaboy.component.lcd;
+
+import ch.epfl.javaboy.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * Converts LcdImages to arrays of pixels
+ * (ARGB ints, RGB bytes or grayscale bytes)
+ * supplied by the caller, with a palette of
+ * 4 colors. Every pair of bytes (msbs and lsbs)
+ * of a line gives its 8 pixels through a single
+ * lookup in a table
+ * @author Toufi
+ */
+public final class PixelConverter {
+
+    /** PixelConverter with the default palette, from white to black */
+    public static final PixelConverter DEFAULT = new PixelConverter(
+            0xFFFF_FFFF, 0xFFD3_D3D3, 0xFFA9_A9A9, 0xFF00_0000);
+
+    private static final int COLORS_COUNT = 4;
+    private static final int PIXELS_PER_BYTE = Byte.SIZE;
+
+    // Colors of the 8 pixels of each pair of bytes (msbs << 8 | lsbs), one byte per pixel
+    private static final long[] PIXELS = pixelsTable();
+
+    private static long[] pixelsTable() {
+        long[] table = new long[1 << (2 * Byte.SIZE)];
+        for (int msbs = 0 ; msbs < 1 << Byte.SIZE ; ++msbs) {
+            for (int lsbs = 0 ; lsbs < 1 << Byte.SIZE ; ++lsbs) {
+                long pixels = 0;
+                for (int i = 0 ; i < PIXELS_PER_BYTE ; ++i) {
+                    final long color = (((msbs >>> i) & 1) << 1) | ((lsbs >>> i) & 1);
+                    pixels |= color << (i * Byte.SIZE);
+                }
+                table[(msbs << Byte.SIZE) | lsbs] = pixels;
+            }
+        }
+        return table;
+    }
+
+    private final int[] argb;
+    private final byte[] red, green, blue, gray;
+
+    /**
+     * Constructs a new PixelConverter with the given palette
+     * @param palette (int...) the 4 colors, as ARGB ints,
+     * of the pixels of color 0 to 3
+     * @throws IllegalArgumentException
+     * if the palette does not have 4 colors
+     */
+    public PixelConverter(int... palette) {
+        Preconditions.checkArgument(palette.length == COLORS_COUNT);
+        argb = palette.clone();
+        red = new byte[COLORS_COUNT];
+        green = new byte[COLORS_COUNT];
+        blue = new byte[COLORS_COUNT];
+        gray = new byte[COLORS_COUNT];
+        for (int i = 0 ; i < COLORS_COUNT ; ++i) {
+            final int r = (argb[i] >>> 16) & 0xFF, g = (argb[i] >>> 8) & 0xFF, b = argb[i] & 0xFF;
+            red[i] = (byte) r;
+            green[i] = (byte) g;
+            blue[i] = (byte) b;
+            // Luma of ITU-R BT.601
+            gray[i] = (byte) ((299 * r + 587 * g + 114 * b + 500) / 1000);
+        }
+    }
+
+    /**
+     * Returns the color of the palette at the given index
+     * @param index (int) index of the color in [0;3]
+     * @return (int) ARGB color
+     * @throws IndexOutOfBoundsException
+     * if the index is not in [0;3]
+     */
+    public int color(int index) {
+        return argb[Objects.checkIndex(index, COLORS_COUNT)];
+    }
+
+    /**
+     * Writes the pixels of the given image in the given array,
+     * line by line, as ARGB ints (width * height ints)
+     * @param img (LcdImage) image to convert
+     * @param dest (int[]) array receiving the pixels
+     * @param offset (int) index of the first pixel in the array
+     * @throws IndexOutOfBoundsException
+     * if the pixels do not fit in the array
+     */
+    public void toArgb(LcdImage img, int[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, img.width() * img.height(), dest.length);
+        for (int y = 0 ; y < img.height() ; ++y)
+            argbLine(img, y, dest, offset + y * img.width());
+    }
+
+    /**
+     * Writes the pixels of the line at the given index
+     * of the given image in the given array, as ARGB ints
+     * (width ints)
+     * @param img (LcdImage) image to convert
+     * @param y (int) index of the line
+     * @param dest (int[]) array receiving the pixels
+     * @param offset (int) index of the first pixel in the array
+     * @throws IndexOutOfBoundsException
+     * if the line is not in the image, or
+     * if the pixels do not fit in the array
+     */
+    public void toArgb(LcdImage img, int y, int[] dest, int offset) {
+        Objects.checkIndex(y, img.height());
+        Objects.checkFromIndexSize(offset, img.width(), dest.length);
+        argbLine(img, y, dest, offset);
+    }
+
+    /**
+     * Writes the pixels of the given image in the given array,
+     * line by line, as RGB bytes (3 * width * height bytes)
+     * @param img (LcdImage) image to convert
+     * @param dest (byte[]) array receiving the pixels
+     * @param offset (int) index of the first byte in the array
+     * @throws IndexOutOfBoundsException
+     * if the pixels do not fit in the array
+     */
+    public void toRgb(LcdImage img, byte[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, 3 * img.width() * img.height(), dest.length);
+        int to = offset;
+        for (int y = 0 ; y < img.height() ; ++y) {
+            for (int i = 0 ; i < img.width() / PIXELS_PER_BYTE ; ++i) {
+                long pixels = pixelsOf(img, y, i);
+                for (int p = 0 ; p < PIXELS_PER_BYTE ; ++p) {
+                    final int color = (int) pixels & 0xFF;
+                    dest[to++] = red[color];
+                    dest[to++] = green[color];
+                    dest[to++] = blue[color];
+                    pixels >>>= Byte.SIZE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the pixels of the given image in the given array,
+     * line by line, as grayscale bytes (width * height bytes)
+     * @param img (LcdImage) image to convert
+     * @param dest (byte[]) array receiving the pixels
+     * @param offset (int) index of the first byte in the array
+     * @throws IndexOutOfBoundsException
+     * if the pixels do not fit in the array
+     */
+    public void toGray(LcdImage img, byte[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, img.width() * img.height(), dest.length);
+        int to = offset;
+        for (int y = 0 ; y < img.height() ; ++y) {
+            for (int i = 0 ; i < img.width() / PIXELS_PER_BYTE ; ++i) {
+                long pixels = pixelsOf(img, y, i);
+                for (int p = 0 ; p < PIXELS_PER_BYTE ; ++p) {
+                    dest[to++] = gray[(int) pixels & 0xFF];
+                    pixels >>>= Byte.SIZE;
+                }
+            }
+        }
+    }
+
+    private void argbLine(LcdImage img, int y, int[] dest, int offset) {
+        int to = offset;
+        for (int i = 0 ; i < img.width() / PIXELS_PER_BYTE ; ++i) {
+            long pixels = pixelsOf(img, y, i);
+            for (int p = 0 ; p < PIXELS_PER_BYTE ; ++p) {
+                dest[to++] = argb[(int) pixels & 0xFF];
+                pixels >>>= Byte.SIZE;
+            }
+        }
+    }
+
+    // Colors of the 8 pixels of the byte at the given index of the given line (see PIXELS)
+    private static long pixelsOf(LcdImage img, int y, int index) {
+        final int words = img.width() / Integer.SIZE;
+        final int w = index / Integer.BYTES, b = (index % Integer.BYTES) * Byte.SIZE;
+        final int msbs = img.planesInt(2 * y * words + w);
+        final int lsbs = img.planesInt((2 * y + 1) * words + w);
+        return PIXELS[(((msbs >>> b) & 0xFF) << Byte.SIZE) | ((lsbs >>> b) & 0xFF)];
+    }
+}
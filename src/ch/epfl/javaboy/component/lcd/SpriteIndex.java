@@ -0,0 +1,160 @@
+package ch.epfl.javaboy.component.lcd;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import ch.epfl.javaboy.bits.Bits;
+import ch.epfl.javaboy.component.memory.Ram;
+
+/**
+ * Represents an index of the sprites of the
+ * OAM intersecting each line, kept up to date
+ * as the OAM is written
+ * @author Toufi
+ */
+final class SpriteIndex {
+
+    /** Number of sprites in the OAM */
+    static final int SPRITES_COUNT = 40;
+
+    private static final int BYTES_PER_SPRITE = 4;
+    private static final int Y = 0, X = 1;
+    private static final int OFFSET_Y = -16;
+    private static final int LINES = 256;
+
+    private final Ram oamRam;
+    // For each line, the sprites intersecting it (bit i for the sprite i)
+    private final long[] lineSprites;
+    // The line of each sprite when it was indexed
+    private final int[] spriteY;
+    private final boolean[] dirty;
+    // Every sprite, by increasing x, then by increasing index
+    private final int[] order;
+    private boolean allDirty, orderDirty;
+    private int height;
+
+    /**
+     * Constructs an index of the sprites of the given OAM
+     * @param oamRam (Ram) the OAM
+     * @throws NullPointerException
+     * if oamRam is null
+     * @throws IllegalArgumentException
+     * if oamRam is too small to hold every sprite
+     */
+    SpriteIndex(Ram oamRam) {
+        Objects.requireNonNull(oamRam);
+        if (oamRam.size() < SPRITES_COUNT * BYTES_PER_SPRITE)
+            throw new IllegalArgumentException("Invalid oam size.");
+        this.oamRam = oamRam;
+        lineSprites = new long[LINES];
+        spriteY = new int[SPRITES_COUNT];
+        dirty = new boolean[SPRITES_COUNT];
+        order = new int[SPRITES_COUNT];
+        invalidateAll();
+    }
+
+    /**
+     * Puts in sprites the first sprites of the OAM
+     * intersecting the given line, at most sprites.length
+     * of them, ordered by increasing x, then by increasing index
+     * @param line (int) index of the line
+     * @param height (int) height of the sprites
+     * @param sprites (int[]) array receiving the sprites
+     * @return (int) number of sprites put in sprites
+     */
+    int spritesOnLine(int line, int height, int[] sprites) {
+        if (height != this.height) {
+            this.height = height;
+            allDirty = true;
+        }
+        update();
+
+        long selected = 0;
+        long remaining = lineSprites[line];
+        for (int n = 0 ; n < sprites.length && remaining != 0 ; ++n) {
+            long first = Long.lowestOneBit(remaining);
+            selected |= first;
+            remaining &= ~first;
+        }
+
+        int count = 0;
+        for (int i = 0 ; i < SPRITES_COUNT && count < sprites.length ; ++i)
+            if ((selected & (1L << order[i])) != 0)
+                sprites[count++] = order[i];
+        return count;
+    }
+
+    /**
+     * Tells the index that the byte of the
+     * OAM at the given index has been written
+     * @param index (int) index of the byte in the OAM
+     */
+    void invalidate(int index) {
+        if (index >= SPRITES_COUNT * BYTES_PER_SPRITE)
+            return;
+        switch (index % BYTES_PER_SPRITE) {
+        case Y:
+            dirty[index / BYTES_PER_SPRITE] = true;
+            break;
+        case X:
+            orderDirty = true;
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Tells the index that the whole
+     * OAM may have been written
+     */
+    void invalidateAll() {
+        allDirty = true;
+        orderDirty = true;
+    }
+
+    private void update() {
+        if (allDirty) {
+            Arrays.fill(lineSprites, 0);
+            for (int s = 0 ; s < SPRITES_COUNT ; ++s) {
+                spriteY[s] = y(s);
+                setLines(s, true);
+                dirty[s] = false;
+            }
+            allDirty = false;
+        } else {
+            for (int s = 0 ; s < SPRITES_COUNT ; ++s) {
+                if (dirty[s]) {
+                    setLines(s, false);
+                    spriteY[s] = y(s);
+                    setLines(s, true);
+                    dirty[s] = false;
+                }
+            }
+        }
+
+        if (orderDirty) {
+            for (int s = 0 ; s < SPRITES_COUNT ; ++s)
+                order[s] = (oamRam.read(s * BYTES_PER_SPRITE + X) << Byte.SIZE) | s;
+            Arrays.sort(order);
+            for (int s = 0 ; s < SPRITES_COUNT ; ++s)
+                order[s] = Bits.clip(Byte.SIZE, order[s]);
+            orderDirty = false;
+        }
+    }
+
+    private void setLines(int sprite, boolean intersecting) {
+        int start = Math.max(spriteY[sprite], 0);
+        int end = Math.min(spriteY[sprite] + height, LINES);
+        for (int l = start ; l < end ; ++l) {
+            if (intersecting)
+                lineSprites[l] |= 1L << sprite;
+            else
+                lineSprites[l] &= ~(1L << sprite);
+        }
+    }
+
+    private int y(int sprite) {
+        return oamRam.read(sprite * BYTES_PER_SPRITE + Y) + OFFSET_Y;
+    }
+}
@@ -0,0 +1,106 @@
+package ch.epfl.javaboy.component.lcd;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import ch.epfl.javaboy.bits.Bits;
+import ch.epfl.javaboy.component.memory.Ram;
+
+/**
+ * Represents a cache of the tiles stored
+ * in the video Ram, each tile being decoded
+ * again only after it has been written
+ * @author Toufi
+ */
+final class TileCache {
+
+    /** Number of tiles in the video Ram */
+    static final int TILES_COUNT = 384;
+
+    private static final int ROWS_PER_TILE = 8;
+    private static final int BYTES_PER_ROW = 2;
+    private static final int BYTES_PER_TILE = BYTES_PER_ROW * ROWS_PER_TILE;
+
+    /** Number of bytes of the video Ram holding tiles */
+    static final int TILES_SIZE = TILES_COUNT * BYTES_PER_TILE;
+
+    private final Ram vRam;
+    private final char[] rows, flippedRows;
+    private final boolean[] dirty;
+
+    /**
+     * Constructs a cache of the tiles
+     * of the given video Ram
+     * @param vRam (Ram) the video Ram, starting with the tiles
+     * @throws NullPointerException
+     * if vRam is null
+     * @throws IllegalArgumentException
+     * if vRam is too small to hold every tile
+     */
+    TileCache(Ram vRam) {
+        Objects.requireNonNull(vRam);
+        if (vRam.size() < TILES_SIZE)
+            throw new IllegalArgumentException("Invalid video ram size.");
+        this.vRam = vRam;
+        rows = new char[TILES_COUNT * ROWS_PER_TILE];
+        flippedRows = new char[TILES_COUNT * ROWS_PER_TILE];
+        dirty = new boolean[TILES_COUNT];
+        invalidateAll();
+    }
+
+    /**
+     * Returns the row of the given index,
+     * as msb (8 MSBs) and lsb (8 LSBs) with their
+     * bits reversed, ready to be displayed
+     * @param index (int) index of the row,
+     * ie. its address in the video Ram divided by 2
+     * @return (int) 16 bits msb and lsb of the row
+     */
+    int row(int index) {
+        decode(index / ROWS_PER_TILE);
+        return rows[index];
+    }
+
+    /**
+     * Returns the row of the given index flipped
+     * horizontally, ie. the msb (8 MSBs) and lsb (8 LSBs)
+     * as they are stored in the video Ram
+     * @param index (int) index of the row,
+     * ie. its address in the video Ram divided by 2
+     * @return (int) 16 bits msb and lsb of the flipped row
+     */
+    int flippedRow(int index) {
+        decode(index / ROWS_PER_TILE);
+        return flippedRows[index];
+    }
+
+    /**
+     * Tells the cache that the byte of the video
+     * Ram at the given index has been written
+     * @param index (int) index of the byte in the video Ram
+     */
+    void invalidate(int index) {
+        if (index < TILES_SIZE)
+            dirty[index / BYTES_PER_TILE] = true;
+    }
+
+    /**
+     * Tells the cache that the whole
+     * video Ram may have been written
+     */
+    void invalidateAll() {
+        Arrays.fill(dirty, true);
+    }
+
+    private void decode(int tile) {
+        if (!dirty[tile])
+            return;
+        for (int r = tile * ROWS_PER_TILE ; r < (tile + 1) * ROWS_PER_TILE ; ++r) {
+            int lsb = vRam.read(r * BYTES_PER_ROW);
+            int msb = vRam.read(r * BYTES_PER_ROW + 1);
+            rows[r] = (char) Bits.make16(Bits.reverse8(msb), Bits.reverse8(lsb));
+            flippedRows[r] = (char) Bits.make16(msb, lsb);
+        }
+        dirty[tile] = false;
+    }
+}
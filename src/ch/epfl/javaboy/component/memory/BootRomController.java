@@ -1,6 +1,7 @@
 package ch.epfl.javaboy.component.memory;
 
 import ch.epfl.javaboy.AddressMap;
+import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.bits.Bits;
 import ch.epfl.javaboy.component.Component;
 import ch.epfl.javaboy.component.cartridge.Cartridge;
@@ -44,6 +45,34 @@ public class BootRomController implements Component {
         cart.write(address, value);
     }
 
+    @Override
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        if (!bootRomDisabled && address < AddressMap.BOOT_ROM_END) {
+            if (address < AddressMap.BOOT_ROM_START || address + length > AddressMap.BOOT_ROM_END)
+                return false;
+            bootRom.copyTo(address, destination, offset, length);
+            return true;
+        }
+        return cart.readBlock(address, destination, offset, length);
+    }
+
+    @Override
+    public int bankAt(int address) {
+        return cart.bankAt(address);
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        return page == Bus.pageOf(AddressMap.REG_BOOT_ROM_DISABLE)
+                || Bus.pageIntersects(page, AddressMap.BOOT_ROM_START, AddressMap.BOOT_ROM_END)
+                || cart.isMappedOn(page);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return address == AddressMap.REG_BOOT_ROM_DISABLE || cart.isMappedOnPort(address);
+    }
+
     @Override
     public byte[] saveState() {
         byte[] state = new byte[1];
@@ -53,6 +53,20 @@ public final class Ram {
         data[index] = (byte) value;
     }
 
+    /**
+     * Copies the length values starting at the
+     * given index into destination, from offset
+     * @param index (int) index of the first value
+     * @param destination (byte[]) array to copy into
+     * @param offset (int) index of the first value in destination
+     * @param length (int) number of values to copy
+     * @throws IndexOutOfBoundsException
+     * if the indices are not valid
+     */
+    public void copyTo(int index, byte[] destination, int offset, int length) {
+        System.arraycopy(data, index, destination, offset, length);
+    }
+
     /**
      * Returns the data in the Ram.
      * Meant to be used only when saving state.
@@ -3,6 +3,7 @@ package ch.epfl.javaboy.component.memory;
 import java.util.Arrays;
 import java.util.Objects;
 
+import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.Preconditions;
 import ch.epfl.javaboy.component.Component;
 
@@ -53,6 +54,24 @@ public final class RamController implements Component {
             ram.write(address - start, value);
     }
 
+    @Override
+    public boolean readBlock(int address, byte[] destination, int offset, int length) {
+        if (!isInBounds(address) || address + length > end)
+            return false;
+        ram.copyTo(address - start, destination, offset, length);
+        return true;
+    }
+
+    @Override
+    public boolean isMappedOn(int page) {
+        return Bus.pageIntersects(page, start, end);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return start <= address && address < end;
+    }
+
     @Override
     public byte[] saveState() {
         return Arrays.copyOf(ram.getData(), ram.getData().length);
@@ -37,4 +37,18 @@ public final class Rom {
     public int read(int index) {
         return Byte.toUnsignedInt(data[index]);
     }
+
+    /**
+     * Copies the length values starting at the
+     * given index into destination, from offset
+     * @param index (int) index of the first value
+     * @param destination (byte[]) array to copy into
+     * @param offset (int) index of the first value in destination
+     * @param length (int) number of values to copy
+     * @throws IndexOutOfBoundsException
+     * if the indices are not valid
+     */
+    public void copyTo(int index, byte[] destination, int offset, int length) {
+        System.arraycopy(data, index, destination, offset, length);
+    }
 }
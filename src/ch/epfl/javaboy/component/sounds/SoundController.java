@@ -8,7 +8,6 @@ import ch.epfl.javaboy.component.sounds.channel.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * Represents the SoundController of a GameBoy
@@ -17,14 +16,13 @@ import java.util.List;
  */
 public class SoundController implements Component, Clocked {
 
-    private enum NR implements Register {
-        NR10, NR11, NR12, NR13, NR14,
-        UNUSED20, NR21, NR22, NR23, NR24,
-        NR30, NR31, NR32, NR33, NR34,
-        UNUSED40, NR41, NR42, NR43, NR44,
-        NR50, NR51, NR52;
-        public static final List<NR> ALL = Arrays.asList(values());
-    }
+    // Indices of the registers in regs (offsets from REGS_NR_START)
+    private static final int NR10 = 0x00, NR11 = 0x01, NR12 = 0x02, NR13 = 0x03, NR14 = 0x04,
+            NR21 = 0x06, NR22 = 0x07, NR23 = 0x08, NR24 = 0x09,
+            NR30 = 0x0A, NR31 = 0x0B, NR32 = 0x0C, NR33 = 0x0D, NR34 = 0x0E,
+            NR41 = 0x10, NR42 = 0x11, NR43 = 0x12, NR44 = 0x13,
+            NR50 = 0x14, NR51 = 0x15, NR52 = 0x16;
+    private static final int REGS_COUNT = AddressMap.REGS_NR_END - AddressMap.REGS_NR_START;
 
     private static final int[] WAVE_RAM_DEFAULT_VALUES = {
             0x84, 0x40, 0x43, 0xAA, 0x2D, 0x78, 0x92, 0x3C,
@@ -43,7 +41,7 @@ public class SoundController implements Component, Clocked {
     private static final int PERIOD = (int) (GameBoy.CYCLES_PER_SECOND / TICKS_PER_SECOND);
     private static final int CHANNEL_COUNT = 4;
 
-    private static final int STATE_LENGTH = AddressMap.WAVE_RAM_SIZE + NR.ALL.size()
+    private static final int STATE_LENGTH = AddressMap.WAVE_RAM_SIZE + REGS_COUNT
             + Integer.BYTES + Long.BYTES;
 
     private final SquareWaveChannel channel1;
@@ -52,7 +50,7 @@ public class SoundController implements Component, Clocked {
     private final NoiseChannel channel4;
     private final ArrayList<BaseChannel> channelList;
 
-    private final RegisterFile<NR> regs;
+    private final int[] regs;
     private final int[] waveRam;
 
     private final SoundOutput soundOutput;
@@ -84,7 +82,7 @@ public class SoundController implements Component, Clocked {
         channelList.add(channel3);
         channelList.add(channel4);
 
-        regs = new RegisterFile<>(NR.values());
+        regs = new int[REGS_COUNT];
         waveRam = Arrays.copyOf(WAVE_RAM_DEFAULT_VALUES, WAVE_RAM_DEFAULT_VALUES.length);
     }
 
@@ -93,7 +91,7 @@ public class SoundController implements Component, Clocked {
         Preconditions.checkBits16(address);
         if (AddressMap.REGS_NR_START <= address && address < AddressMap.REGS_NR_END) {
             final int id = address - AddressMap.REGS_NR_START;
-            return regs.get(NR.ALL.get(id)) | NR_REGS_MASKS[id];
+            return regs[id] | NR_REGS_MASKS[id];
         }
         if (AddressMap.WAVE_RAM_START <= address && address < AddressMap.WAVE_RAM_END)
             return waveRam[address - AddressMap.WAVE_RAM_START];
@@ -106,11 +104,11 @@ public class SoundController implements Component, Clocked {
         Preconditions.checkBits8(value);
 
         if (AddressMap.REGS_NR_START <= address && address < AddressMap.REGS_NR_END) {
-            final NR reg = NR.ALL.get(address - AddressMap.REGS_NR_START);
-            if (reg == NR.NR52)
-                regs.set(NR.NR52, (value & 0xF0) | (regs.get(NR.NR52) & 0xF));
+            final int reg = address - AddressMap.REGS_NR_START;
+            if (reg == NR52)
+                regs[NR52] = (value & 0xF0) | (regs[NR52] & 0xF);
             else
-                regs.set(reg, value);
+                regs[reg] = value;
         }
         else if (AddressMap.WAVE_RAM_START <= address && address < AddressMap.WAVE_RAM_END) {
             final int id = address - AddressMap.WAVE_RAM_START;
@@ -118,6 +116,17 @@ public class SoundController implements Component, Clocked {
         }
     }
 
+    @Override
+    public boolean isMappedOn(int page) {
+        return Bus.pageIntersects(page, AddressMap.REGS_NR_START, AddressMap.WAVE_RAM_END);
+    }
+
+    @Override
+    public boolean isMappedOnPort(int address) {
+        return (AddressMap.REGS_NR_START <= address && address < AddressMap.REGS_NR_END)
+                || (AddressMap.WAVE_RAM_START <= address && address < AddressMap.WAVE_RAM_END);
+    }
+
     @Override
     public byte[] saveState() {
         byte[] state = new byte[STATE_LENGTH];
@@ -131,9 +140,9 @@ public class SoundController implements Component, Clocked {
             state[baseIndex + i] = (byte) Bits.extract(lastCycle, i * Byte.SIZE, Byte.SIZE);
         baseIndex += Long.BYTES;
 
-        for (int i = 0 ; i < NR.ALL.size() ; ++i)
-            state[baseIndex + i] = (byte) regs.get(NR.ALL.get(i));
-        baseIndex += NR.ALL.size();
+        for (int i = 0 ; i < REGS_COUNT ; ++i)
+            state[baseIndex + i] = (byte) regs[i];
+        baseIndex += REGS_COUNT;
 
         for (int i = 0 ; i < AddressMap.WAVE_RAM_SIZE ; ++i)
             state[baseIndex + i] = (byte) waveRam[i];
@@ -157,9 +166,9 @@ public class SoundController implements Component, Clocked {
             lastCycle |= Byte.toUnsignedLong(state[baseIndex + i]) << (i * Byte.SIZE);
         baseIndex += Long.BYTES;
 
-        for (int i = 0 ; i < NR.ALL.size() ; ++i)
-            regs.set(NR.ALL.get(i), Byte.toUnsignedInt(state[baseIndex + i]));
-        baseIndex += NR.ALL.size();
+        for (int i = 0 ; i < REGS_COUNT ; ++i)
+            regs[i] = Byte.toUnsignedInt(state[baseIndex + i]);
+        baseIndex += REGS_COUNT;
 
         for (int i = 0 ; i < AddressMap.WAVE_RAM_SIZE ; ++i)
             waveRam[i] = Byte.toUnsignedInt(state[baseIndex + i]);
@@ -188,6 +197,27 @@ public class SoundController implements Component, Clocked {
         }
     }
 
+    @Override
+    public void cycleRange(long start, long end) {
+        for (long c = nextEventCycle(start - 1) ; c < end ; c = nextEventCycle(c))
+            cycle(c);
+
+        if (lastCycle < end - 1) {
+            soundTimer += end - 1 - lastCycle;
+            lastCycle = end - 1;
+        }
+    }
+
+    @Override
+    public long nextEventCycle(long cycle) {
+        return Math.max(lastCycle + PERIOD - soundTimer, cycle + 1);
+    }
+
+    @Override
+    public long nextInterruptCycle(long cycle) {
+        return Long.MAX_VALUE;
+    }
+
     /**
      * Starts the audio
      */
@@ -217,11 +247,11 @@ public class SoundController implements Component, Clocked {
             removeChannelTrigger(1);
             setChannelOn(1);
 
-            int nr10 = regs.get(NR.NR10);
-            int nr11 = regs.get(NR.NR11);
-            int nr12 = regs.get(NR.NR12);
-            int nr13 = regs.get(NR.NR13);
-            int nr14 = regs.get(NR.NR14);
+            int nr10 = regs[NR10];
+            int nr11 = regs[NR11];
+            int nr12 = regs[NR12];
+            int nr13 = regs[NR13];
+            int nr14 = regs[NR14];
 
             channel1.setOn(true);
             channel1.setWaveDuty((nr11 >> 6) & 0x3);
@@ -283,8 +313,8 @@ public class SoundController implements Component, Clocked {
                         setChannelOff(1);
                     }
                     else {
-                        regs.set(NR.NR13, channel1.getGbFreq() & 0xFF);
-                        regs.set(NR.NR14, (regs.get(NR.NR14) & 0xF8) | ((channel1.getGbFreq() >> 8) & 0x7));
+                        regs[NR13] = channel1.getGbFreq() & 0xFF;
+                        regs[NR14] = (regs[NR14] & 0xF8) | ((channel1.getGbFreq() >> 8) & 0x7);
                         channel1.setFreq((float)131072 / (2048 - channel1.getGbFreq()));
                     }
                 }
@@ -297,10 +327,10 @@ public class SoundController implements Component, Clocked {
             removeChannelTrigger(2);
             setChannelOn(2);
 
-            int nr21 = regs.get(NR.NR21);
-            int nr22 = regs.get(NR.NR22);
-            int nr23 = regs.get(NR.NR23);
-            int nr24 = regs.get(NR.NR24);
+            int nr21 = regs[NR21];
+            int nr22 = regs[NR22];
+            int nr23 = regs[NR23];
+            int nr24 = regs[NR24];
 
             channel2.setOn(true);
             channel2.setWaveDuty((nr21 >> 6) & 0x3);
@@ -356,10 +386,10 @@ public class SoundController implements Component, Clocked {
 
             channel3.setIndex(0);
 
-            int nr30 = regs.get(NR.NR30);
-            int nr31 = regs.get(NR.NR31);
-            int nr33 = regs.get(NR.NR33);
-            int nr34 = regs.get(NR.NR34);
+            int nr30 = regs[NR30];
+            int nr31 = regs[NR31];
+            int nr33 = regs[NR33];
+            int nr34 = regs[NR34];
 
             channel3.setOn((nr30 & 0x80) == 0x80);
 
@@ -388,8 +418,8 @@ public class SoundController implements Component, Clocked {
     private void updateChannel3() {
         if (channel3.isOn())
         {
-            int nr30 = regs.get(NR.NR30);
-            int nr32 = regs.get(NR.NR32);
+            int nr30 = regs[NR30];
+            int nr32 = regs[NR32];
 
             channel3.incIndex();
 
@@ -424,10 +454,10 @@ public class SoundController implements Component, Clocked {
             removeChannelTrigger(4);
             setChannelOn(4);
 
-            int nr41 = regs.get(NR.NR41);
-            int nr42 = regs.get(NR.NR42);
-            int nr43 = regs.get(NR.NR43);
-            int nr44 = regs.get(NR.NR44);
+            int nr41 = regs[NR41];
+            int nr42 = regs[NR42];
+            int nr43 = regs[NR43];
+            int nr44 = regs[NR44];
 
             channel4.setOn(true);
             channel4.setIndex(0);
@@ -514,72 +544,72 @@ public class SoundController implements Component, Clocked {
     }
 
     private boolean isSoundControllerOn() {
-        return (regs.get(NR.NR52) & 0x80) != 0;
+        return (regs[NR52] & 0x80) != 0;
     }
 
     private boolean isChannelTriggered(int channelNum) {
-        NR reg;
+        int reg;
         switch (channelNum) {
             case 1:
-                reg = NR.NR14;
+                reg = NR14;
                 break;
             case 2:
-                reg = NR.NR24;
+                reg = NR24;
                 break;
             case 3:
-                reg = NR.NR34;
+                reg = NR34;
                 break;
             case 4:
-                reg = NR.NR44;
+                reg = NR44;
                 break;
             default:
                 throw new IllegalStateException();
         }
-        return (regs.get(reg) & 0x80) != 0;
+        return (regs[reg] & 0x80) != 0;
     }
     private void removeChannelTrigger(int channelNum) {
-        NR reg;
+        int reg;
         switch (channelNum) {
             case 1:
-                reg = NR.NR14;
+                reg = NR14;
                 break;
             case 2:
-                reg = NR.NR24;
+                reg = NR24;
                 break;
             case 3:
-                reg = NR.NR34;
+                reg = NR34;
                 break;
             case 4:
-                reg = NR.NR44;
+                reg = NR44;
                 break;
             default:
                 throw new IllegalStateException();
         }
-        regs.set(reg, regs.get(reg) & 0x7F);
+        regs[reg] = regs[reg] & 0x7F;
     }
 
     private void setChannelOn(int channelNum) {
         int mask = 1 << (channelNum - 1);
-        regs.set(NR.NR52, regs.get(NR.NR52) | mask);
+        regs[NR52] = regs[NR52] | mask;
     }
     private void setChannelOff(int channelNum) {
         int mask = 1 << (channelNum - 1);
-        regs.set(NR.NR52, regs.get(NR.NR52) & ~mask);
+        regs[NR52] = regs[NR52] & ~mask;
     }
 
     private boolean isChannelToLeftMixer(int channelNum) {
         int mask = 1 << (4 + channelNum - 1);
-        return (regs.get(NR.NR51) & mask) != 0;
+        return (regs[NR51] & mask) != 0;
     }
     private boolean isChannelToRightMixer(int channelNum) {
         int mask = 1 << (channelNum - 1);
-        return (regs.get(NR.NR51) & mask) != 0;
+        return (regs[NR51] & mask) != 0;
     }
 
     private int getLeftSoundLevel() {
-        return (regs.get(NR.NR50) >> 4) & 0x7;
+        return (regs[NR50] >> 4) & 0x7;
     }
     private int getRightSoundLevel() {
-        return regs.get(NR.NR50) & 0x7;
+        return regs[NR50] & 0x7;
     }
 }
@@ -3,7 +3,7 @@ package ch.epfl.javaboy.gui;
 import ch.epfl.javaboy.GameBoy;
 import ch.epfl.javaboy.component.Joypad;
 import ch.epfl.javaboy.component.cartridge.Cartridge;
-import ch.epfl.javaboy.component.lcd.ImageConverter;
+import ch.epfl.javaboy.component.lcd.FrameBuffer;
 import ch.epfl.javaboy.component.lcd.LcdController;
 import ch.epfl.javaboy.gui.options.General;
 import ch.epfl.javaboy.gui.options.Sound;
@@ -64,6 +64,7 @@ public final class Main extends Application {
     }
 
     private ImageView view;
+    private FrameBuffer screen;
     private BorderPane root;
     private Scene scene;
     private Stage primaryStage;
@@ -174,8 +175,7 @@ public final class Main extends Application {
                 long elapsed = now - startTime;
                 long cycles = (long) (elapsed * GameBoy.CYCLES_PER_NANO_SECOND);
                 gameBoy.runUntil(cycles);
-                view.setImage(ImageConverter.convert(
-                        gameBoy.lcdController().currentImage()));
+                screen.show(gameBoy.lcdController().currentImage());
             }
         };
     }
@@ -187,7 +187,8 @@ public final class Main extends Application {
     }
 
     private void createSceneRootView() {
-        view = new ImageView();
+        screen = new FrameBuffer(LcdController.LCD_WIDTH, LcdController.LCD_HEIGHT);
+        view = new ImageView(screen.image());
         view.setFitWidth(LcdController.LCD_WIDTH * 3);
         view.setFitHeight(LcdController.LCD_HEIGHT * 3);
 
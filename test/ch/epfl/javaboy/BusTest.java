@@ -5,6 +5,7 @@ package ch.epfl.javaboy;
 import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -16,6 +17,8 @@ import org.junit.jupiter.api.Test;
 
 import ch.epfl.javaboy.Bus;
 import ch.epfl.javaboy.component.Component;
+import ch.epfl.javaboy.component.memory.Ram;
+import ch.epfl.javaboy.component.memory.RamController;
 
 class BusTest {
     private static SimpleComponent[] newComponents(int n) {
@@ -91,6 +94,80 @@ class BusTest {
             assertEquals((i * 2018) & 0xFF, b.read(i));
     }
 
+    @Test
+    void readAndWriteOnlyConcernComponentsMappedOnThePage() {
+        SimpleComponent mapped = new SimpleComponent(0x1234, 42);
+        SimpleComponent unmapped = new SimpleComponent(0x1234, 43) {
+            @Override
+            public boolean isMappedOn(int page) {
+                return page != Bus.pageOf(0x1234);
+            }
+        };
+        Bus b = new Bus();
+        b.attach(unmapped);
+        b.attach(mapped);
+        assertEquals(42, b.read(0x1234));
+        b.write(0x1234, 0);
+        assertTrue(mapped.wasRead() && mapped.wasWritten());
+        assertFalse(unmapped.wasRead() || unmapped.wasWritten());
+    }
+
+    @Test
+    void readReturnsValueOfFirstAttachedComponentOnSharedPage() {
+        Bus b = new Bus();
+        b.attach(new SimpleComponent(0xFF40, 1));
+        b.attach(new SimpleComponent(0xFF40, 2));
+        b.attach(new SimpleComponent(0xFF41, 3));
+        assertEquals(1, b.read(0xFF40));
+        assertEquals(3, b.read(0xFF41));
+        assertEquals(0xFF, b.read(0xFF42));
+    }
+
+    @Test
+    void readAndWriteOnlyConcernComponentsMappedOnThePort() {
+        SimpleComponent mapped = new SimpleComponent(0xFF44, 42);
+        SimpleComponent unmapped = new SimpleComponent(0xFF44, 43) {
+            @Override
+            public boolean isMappedOnPort(int address) {
+                return address != 0xFF44;
+            }
+        };
+        Bus b = new Bus();
+        b.attach(unmapped);
+        b.attach(mapped);
+        assertEquals(42, b.read(0xFF44));
+        b.write(0xFF44, 0);
+        assertTrue(mapped.wasRead() && mapped.wasWritten());
+        assertFalse(unmapped.wasRead() || unmapped.wasWritten());
+        b.write(0xFF45, 0);
+        assertTrue(unmapped.wasWritten());
+    }
+
+    @Test
+    void readBlockCopiesFromTheFirstComponentOnThePage() {
+        Ram ram = new Ram(0x100);
+        for (int i = 0; i < ram.size(); ++i)
+            ram.write(i, i ^ 0x5A);
+        Bus b = new Bus();
+        b.attach(new RamController(ram, 0xC000, 0xC100));
+        byte[] block = new byte[0xA0];
+        assertTrue(b.readBlock(0xC000, block, 0, block.length));
+        for (int i = 0; i < block.length; ++i)
+            assertEquals(b.read(0xC000 + i), Byte.toUnsignedInt(block[i]));
+    }
+
+    @Test
+    void readBlockFailsWhenValuesMustBeReadOneByOne() {
+        Bus b = new Bus();
+        b.attach(new SimpleComponent(0xC000, 1));
+        b.attach(new RamController(new Ram(0x200), 0xC000, 0xC200));
+        byte[] block = new byte[0xA0];
+        assertFalse(b.readBlock(0xC000, block, 0, block.length));
+        assertFalse(b.readBlock(0xD000, block, 0, block.length));
+        assertFalse(b.readBlock(0xC0F0, block, 0, block.length));
+        assertFalse(b.readBlock(0xFF00, block, 0, block.length));
+    }
+
     @Test
     void writeFailsForInvalidAddress() {
         Random rng = newRandom();
@@ -145,4 +222,14 @@ class SimpleComponent implements Component {
         if (a == address)
             value = d;
     }
+
+    @Override
+    public byte[] saveState() {
+        return new byte[] { (byte) value };
+    }
+
+    @Override
+    public void loadState(byte[] state) {
+        value = Byte.toUnsignedInt(state[0]);
+    }
 }
@@ -1,6 +1,7 @@
 package ch.epfl.javaboy;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 
@@ -11,13 +12,10 @@ import ch.epfl.javaboy.component.Joypad.Key;
 import ch.epfl.javaboy.component.cartridge.Cartridge;
 import ch.epfl.javaboy.component.cpu.Cpu;
 import ch.epfl.javaboy.component.lcd.LcdImage;
+import ch.epfl.javaboy.component.lcd.PixelConverter;
 
 public final class DebugMain {
 
-    private static final int[] COLOR_MAP = new int[] {
-            0xFF_FF_FF, 0xD3_D3_D3, 0xA9_A9_A9, 0x00_00_00
-    };
-
     public static final String[] romNamesTests = {
             "01-special.gb", "02-interrupts.gb", "03-op sp,hl.gb",
             "04-op r,imm.gb", "05-op rp.gb", "06-ld r,r.gb",
@@ -77,15 +75,7 @@ public final class DebugMain {
         }
         System.out.println("+--------------------+");
 
-        LcdImage li = gb.lcdController().currentImage();
-        BufferedImage i =
-                new BufferedImage(li.width(),
-                        li.height(),
-                        BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < li.height(); ++y)
-            for (int x = 0; x < li.width(); ++x)
-                i.setRGB(x, y, COLOR_MAP[li.getColor(x, y)]);
-        ImageIO.write(i, "png", new File("gb.png"));
+        writeImage(gb.lcdController().currentImage(), new File("gb.png"));
     }
 
     public static void runTest3(File romFile) throws IOException {
@@ -99,15 +89,16 @@ public final class DebugMain {
         gb.joypad().keyReleased(Key.A);
         gb.runUntil(cycles + 2 * (1L << 20));
 
-        LcdImage li = gb.lcdController().currentImage();
+        writeImage(gb.lcdController().currentImage(), new File("gb.png"));
+    }
+
+    private static void writeImage(LcdImage li, File file) throws IOException {
         BufferedImage i =
                 new BufferedImage(li.width(),
                         li.height(),
                         BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < li.height(); ++y)
-            for (int x = 0; x < li.width(); ++x)
-                i.setRGB(x, y, COLOR_MAP[li.getColor(x, y)]);
-        ImageIO.write(i, "png", new File("gb.png"));
+        int[] pixels = ((DataBufferInt) i.getRaster().getDataBuffer()).getData();
+        PixelConverter.DEFAULT.toArgb(li, pixels, 0);
+        ImageIO.write(i, "png", file);
     }
 }
-
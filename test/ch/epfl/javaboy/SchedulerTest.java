@@ -0,0 +1,173 @@
+package ch.epfl.javaboy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.component.Clocked;
+
+public final class SchedulerTest {
+    @Test
+    void registerFailsWithNullComponent() {
+        assertThrows(NullPointerException.class, () -> {
+            new Scheduler().register(null);
+        });
+    }
+
+    @Test
+    void runFailsWhenGoingBackwardsInTime() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Scheduler().run(2018, 2017);
+        });
+    }
+
+    @Test
+    void runCallsEveryCycleByDefault() {
+        Scheduler s = new Scheduler();
+        List<Long> cycles = new ArrayList<>();
+        s.register(cycles::add);
+        s.run(0, 100);
+        assertEquals(100, cycles.size());
+        for (int i = 0; i < cycles.size(); ++i)
+            assertEquals(i, (long) cycles.get(i));
+    }
+
+    @Test
+    void runOnlyStopsAtEvents() {
+        Scheduler s = new Scheduler();
+        List<Long> cycles = new ArrayList<>();
+        s.register(new PeriodicComponent(7, cycles));
+        s.register(new PeriodicComponent(11, null));
+        s.run(0, 100);
+        s.run(100, 100);
+
+        List<Long> expected = new ArrayList<>();
+        for (long c = 0; c < 100; ++c)
+            if (c % 7 == 0 || c % 11 == 0)
+                expected.add(c);
+        assertEquals(expected, cycles);
+    }
+
+    @Test
+    void runRunsComponentsInOrderOfRegistration() {
+        Scheduler s = new Scheduler();
+        StringBuilder b = new StringBuilder();
+        s.register(c -> b.append('a'));
+        s.register(c -> b.append('b'));
+        s.run(0, 3);
+        assertEquals("ababab", b.toString());
+    }
+
+    @Test
+    void runOnlyStopsAtInterruptsWhileWaiting() {
+        Scheduler s = new Scheduler();
+        List<Long> quietCycles = new ArrayList<>();
+        List<Long> waitingCycles = new ArrayList<>();
+        s.register(new PeriodicComponent(5, quietCycles, false));
+        s.register(new PeriodicComponent(10, null));
+        s.register(new WaitingComponent(waitingCycles));
+        s.run(0, 100);
+
+        List<Long> expectedQuiet = new ArrayList<>();
+        List<Long> expectedWaiting = new ArrayList<>();
+        for (long c = 0; c < 100; ++c) {
+            if (c % 5 == 0)
+                expectedQuiet.add(c);
+            if (c % 10 == 0)
+                expectedWaiting.add(c);
+        }
+        assertEquals(expectedQuiet, quietCycles);
+        assertEquals(expectedWaiting, waitingCycles);
+    }
+
+    @Test
+    void runLetsTheFirstComponentRunAheadUntilTheOthers() {
+        Scheduler s = new Scheduler();
+        List<Long> cycles = new ArrayList<>();
+        List<Long> deadlines = new ArrayList<>();
+        s.register(new PeriodicComponent(10, null));
+        s.register(new Clocked() {
+            private long ranUntil = 0;
+
+            @Override
+            public void cycle(long cycle) {
+                cycles.add(cycle);
+            }
+
+            @Override
+            public long nextEventCycle(long cycle) {
+                return Math.max(ranUntil, cycle + 1);
+            }
+
+            @Override
+            public long runAhead(long cycle, long deadline) {
+                deadlines.add(deadline);
+                ranUntil = deadline;
+                return deadline;
+            }
+        });
+        s.run(0, 35);
+
+        assertEquals(List.of(0L, 10L, 20L, 30L), cycles);
+        assertEquals(List.of(10L, 20L, 30L, 35L), deadlines);
+    }
+
+    private static final class PeriodicComponent implements Clocked {
+        private final long period;
+        private final List<Long> record;
+        private final boolean interrupts;
+
+        PeriodicComponent(long period, List<Long> record) {
+            this(period, record, true);
+        }
+
+        PeriodicComponent(long period, List<Long> record, boolean interrupts) {
+            this.period = period;
+            this.record = record;
+            this.interrupts = interrupts;
+        }
+
+        @Override
+        public void cycle(long cycle) {
+            if (record != null)
+                record.add(cycle);
+        }
+
+        @Override
+        public long nextEventCycle(long cycle) {
+            return (cycle / period + 1) * period;
+        }
+
+        @Override
+        public long nextInterruptCycle(long cycle) {
+            return interrupts ? nextEventCycle(cycle) : Long.MAX_VALUE;
+        }
+    }
+
+    private static final class WaitingComponent implements Clocked {
+        private final List<Long> record;
+
+        WaitingComponent(List<Long> record) {
+            this.record = record;
+        }
+
+        @Override
+        public void cycle(long cycle) {
+            record.add(cycle);
+        }
+
+        @Override
+        public long nextEventCycle(long cycle) {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isWaitingForInterrupt() {
+            return true;
+        }
+    }
+}
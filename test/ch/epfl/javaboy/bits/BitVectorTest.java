@@ -1,8 +1,19 @@
 package ch.epfl.javaboy.bits;
 
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
 
 public class BitVectorTest {
+    private static final int[] SIZES = { 32, 64, 96, 160, 256 };
+    private static final int[] REFERENCE_SIZES = { 32, 64, 96, 160, 256, 512 };
+
     public static void main(String[] args) {
         BitVector.Builder build = new BitVector.Builder(64);
         for (int i = 0 ; i < 8 ; ++i)
@@ -17,4 +28,137 @@ public class BitVectorTest {
         for (BitVector v: List.of(v1, v2, v3))
             System.out.println(v);
     }
+
+    @Test
+    void bitsPastTheSizeDoNotChangeEquality() {
+        for (int size : SIZES) {
+            BitVector ones = new BitVector(size, true);
+            assertEquals(ones, new BitVector(size).not());
+            assertEquals(ones, ones.combine(ones, 0b1111));
+            assertEquals(ones, ones.extractWrapped(-5, size));
+            assertEquals(new BitVector(size), ones.xor(ones));
+        }
+    }
+
+    @Test
+    void bytesAreThoseSet() {
+        BitVector.Builder b = new BitVector.Builder(96);
+        for (int i = 0; i < Integer.BYTES; ++i)
+            b.setByte(Integer.BYTES + i, (0x8765_4321 >>> (i * Byte.SIZE)) & 0xFF);
+        b.setByte(0, 0xAB);
+        b.setByte(11, 0xCD);
+        assertArrayEquals(new byte[] { (byte) 0xAB, 0, 0, 0, 0x21, 0x43, 0x65, (byte) 0x87, 0, 0, 0, (byte) 0xCD },
+                b.build().getBytes());
+    }
+
+    @Test
+    void operationsWorkBitByBit() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int size = SIZES[rng.nextInt(SIZES.length)];
+            BitVector a = randomVector(rng, size), b = randomVector(rng, size);
+            int start = rng.nextInt(4 * size) - 2 * size;
+            int extractSize = Integer.SIZE * rng.nextInt(10);
+            int function = rng.nextInt(16);
+
+            BitVector wrapped = a.extractWrapped(start, extractSize);
+            BitVector zeroExtended = a.extractZeroExtended(start, extractSize);
+            for (int x = 0; x < extractSize; ++x) {
+                int j = start + x;
+                assertEquals(a.testBit(Math.floorMod(j, size)), wrapped.testBit(x));
+                assertEquals(0 <= j && j < size && a.testBit(j), zeroExtended.testBit(x));
+            }
+
+            BitVector not = a.not(), and = a.and(b), or = a.or(b), xor = a.xor(b);
+            BitVector combined = a.combine(b, function);
+            for (int x = 0; x < size; ++x) {
+                boolean p = a.testBit(x), q = b.testBit(x);
+                assertEquals(!p, not.testBit(x));
+                assertEquals(p & q, and.testBit(x));
+                assertEquals(p | q, or.testBit(x));
+                assertEquals(p ^ q, xor.testBit(x));
+                assertEquals(Bits.test(function, (p ? 2 : 0) + (q ? 1 : 0)), combined.testBit(x));
+            }
+        }
+    }
+
+    @Test
+    void operationsMatchABitByBitReference() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int size = REFERENCE_SIZES[rng.nextInt(REFERENCE_SIZES.length)];
+            boolean[] p = randomBits(rng, size), q = randomBits(rng, size);
+            BitVector a = vectorOf(p), b = vectorOf(q);
+            int start = rng.nextInt(4 * size) - 2 * size;
+            int extractSize = Integer.SIZE * rng.nextInt(20);
+            int function = rng.nextInt(16);
+
+            boolean[] wrapped = new boolean[extractSize], zeroExtended = new boolean[extractSize];
+            for (int x = 0; x < extractSize; ++x) {
+                int j = start + x;
+                wrapped[x] = p[Math.floorMod(j, size)];
+                zeroExtended[x] = 0 <= j && j < size && p[j];
+            }
+            assertReference(wrapped, a.extractWrapped(start, extractSize));
+            assertReference(zeroExtended, a.extractZeroExtended(start, extractSize));
+
+            boolean[] shifted = new boolean[size], not = new boolean[size], and = new boolean[size],
+                    or = new boolean[size], xor = new boolean[size], combined = new boolean[size];
+            for (int x = 0; x < size; ++x) {
+                int j = start + x;
+                shifted[x] = 0 <= j && j < size && p[j];
+                not[x] = !p[x];
+                and[x] = p[x] & q[x];
+                or[x] = p[x] | q[x];
+                xor[x] = p[x] ^ q[x];
+                combined[x] = Bits.test(function, (p[x] ? 2 : 0) + (q[x] ? 1 : 0));
+            }
+            assertReference(shifted, a.shift(start));
+            assertReference(not, a.not());
+            assertReference(and, a.and(b));
+            assertReference(or, a.or(b));
+            assertReference(xor, a.xor(b));
+            assertReference(combined, a.combine(b, function));
+            assertReference(p, a.not().not());
+        }
+    }
+
+    private static void assertReference(boolean[] expected, BitVector v) {
+        assertEquals(expected.length, v.size());
+        byte[] bytes = v.getBytes();
+        StringBuilder string = new StringBuilder();
+        for (int x = expected.length - 1; x >= 0; --x) {
+            assertEquals(expected[x], Bits.test(bytes[x / Byte.SIZE], x % Byte.SIZE));
+            string.append(expected[x] ? '1' : '0');
+        }
+        assertEquals(string.toString(), v.toString());
+        assertEquals(vectorOf(expected), v);
+        assertEquals(vectorOf(expected).hashCode(), v.hashCode());
+    }
+
+    private static boolean[] randomBits(Random rng, int size) {
+        boolean[] bits = new boolean[size];
+        for (int x = 0; x < size; ++x)
+            bits[x] = rng.nextBoolean();
+        return bits;
+    }
+
+    private static BitVector vectorOf(boolean[] bits) {
+        BitVector.Builder b = new BitVector.Builder(bits.length);
+        for (int i = 0; i < bits.length / Byte.SIZE; ++i) {
+            int value = 0;
+            for (int x = 0; x < Byte.SIZE; ++x)
+                if (bits[i * Byte.SIZE + x])
+                    value |= 1 << x;
+            b.setByte(i, value);
+        }
+        return b.build();
+    }
+
+    private static BitVector randomVector(Random rng, int size) {
+        BitVector.Builder b = new BitVector.Builder(size);
+        for (int i = 0; i < size / Byte.SIZE; ++i)
+            b.setByte(i, rng.nextInt(1 << Byte.SIZE));
+        return b.build();
+    }
 }
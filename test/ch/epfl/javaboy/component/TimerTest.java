@@ -159,4 +159,54 @@ public final class TimerTest implements ComponentTest {
             assertEquals(t.read(0xFF05), tma);
         }
     }
+    
+    @Test
+    void cycleRangeIsEquivalentToCycle() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            Cpu cpu1 = new Cpu(), cpu2 = new Cpu();
+            Timer t1 = new Timer(cpu1), t2 = new Timer(cpu2);
+            int tac = 0b100 | rng.nextInt(4), tma = rng.nextInt(0x100);
+            for (Timer t : new Timer[] { t1, t2 }) {
+                t.write(0xFF07, tac);
+                t.write(0xFF06, tma);
+            }
+            long c = 0;
+            for (int j = 0; j < 20; ++j) {
+                long end = c + rng.nextInt(2000);
+                t1.cycleRange(c, end);
+                for (; c < end; ++c)
+                    t2.cycle(c);
+                for (int a = 0xFF04; a <= 0xFF07; ++a)
+                    assertEquals(t2.read(a), t1.read(a));
+                assertEquals(cpu2.read(0xFF0F), cpu1.read(0xFF0F));
+            }
+        }
+    }
+    
+    @Test
+    void nextEventCycleIsTheCycleOfTheNextOverflow() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            Cpu cpu = new Cpu();
+            Timer t = new Timer(cpu);
+            t.write(0xFF07, 0b100 | rng.nextInt(4));
+            t.write(0xFF05, rng.nextInt(0x100));
+            long c = rng.nextInt(100);
+            t.cycleRange(0, c + 1);
+            cpu.write(0xFF0F, 0);
+            long next = t.nextEventCycle(c);
+            t.cycleRange(c + 1, next);
+            assertEquals(0, cpu.read(0xFF0F));
+            t.cycle(next);
+            assertEquals(1 << Cpu.Interrupt.TIMER.index(), cpu.read(0xFF0F));
+        }
+    }
+
+    @Test
+    void nextEventCycleIsInfiniteWhenDisabled() {
+        Timer t = newComponent();
+        t.write(0xFF07, 0b011);
+        assertEquals(Long.MAX_VALUE, t.nextEventCycle(0));
+    }
 }
@@ -0,0 +1,160 @@
+package ch.epfl.javaboy.component.cpu;
+
+import static ch.epfl.javaboy.component.cpu.CpuFixtures.ramAt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.Bus;
+import ch.epfl.javaboy.component.cpu.CpuFixtures.TestComponent;
+
+public final class CpuCacheTest {
+    private static final int CYCLES = 1_000;
+
+    @Test
+    void selfModifyingCodeIsExecutedWithItsNewValue() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        ramAt(b, 0x0000, 0xC3, 0x00, 0xC0);         // JP C000
+        ramAt(b, 0xC000,
+                0x3E, 0x01,                         // LD A,1
+                0xEA, 0x00, 0xD0,                   // LD (D000),A
+                0x3E, 0x02,                         // LD A,2
+                0xEA, 0x01, 0xC0,                   // LD (C001),A
+                0xC3, 0x00, 0xC0);                  // JP C000
+        ramAt(b, 0xD000, 0x00);
+        for (int i = 0; i < CYCLES; ++i)
+            c.cycle(i);
+        assertEquals(2, b.read(0xD000));
+    }
+
+    @Test
+    void bankSwitchedCodeIsExecutedFromTheNewBank() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        b.attach(new BankedRom(
+                0x3E, 0x01,                         // LD A,1
+                0xEA, 0x00, 0x20,                   // LD (2000),A
+                0xCD, 0x00, 0x40,                   // CALL 4000
+                0xEA, 0x00, 0xD0,                   // LD (D000),A
+                0x3E, 0x02,                         // LD A,2
+                0xEA, 0x00, 0x20,                   // LD (2000),A
+                0xCD, 0x00, 0x40,                   // CALL 4000
+                0xEA, 0x01, 0xD0,                   // LD (D001),A
+                0x18, 0xFE));                       // JR -2
+        ramAt(b, 0xD000, 0x00, 0x00);
+        for (int i = 0; i < CYCLES; ++i)
+            c.cycle(i);
+        assertEquals(0x11, b.read(0xD000));
+        assertEquals(0x12, b.read(0xD001));
+    }
+
+    @Test
+    void instructionsOfEachBankAreKeptAcrossBankSwitches() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        BankedRom rom = new BankedRom(
+                0x3E, 0x01,                         // LD A,1
+                0xEA, 0x00, 0x20,                   // LD (2000),A
+                0xCD, 0x00, 0x40,                   // CALL 4000
+                0x3E, 0x02,                         // LD A,2
+                0xEA, 0x00, 0x20,                   // LD (2000),A
+                0xCD, 0x00, 0x40,                   // CALL 4000
+                0x18, 0xEE);                        // JR -18
+        b.attach(rom);
+        long cycle = 0;
+        while (cycle < CYCLES)
+            c.cycle(cycle++);
+        int reads = rom.switchableReads;
+        while (cycle < 2 * CYCLES)
+            c.cycle(cycle++);
+        assertEquals(reads, rom.switchableReads);
+    }
+
+    @Test
+    void codePatchedThroughTheBusIsExecutedWithItsNewValue() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        ramAt(b, 0x0000, 0xC3, 0x00, 0xC0);         // JP C000
+        ramAt(b, 0xC000,
+                0x3E, 0x01,                         // LD A,1
+                0xEA, 0x00, 0xD0,                   // LD (D000),A
+                0xC3, 0x00, 0xC0);                  // JP C000
+        ramAt(b, 0xD000, 0x00);
+        long cycle = 0;
+        while (cycle < CYCLES)
+            c.cycle(cycle++);
+        assertEquals(1, b.read(0xD000));
+
+        b.write(0xC001, 0x02);
+        while (cycle < 2 * CYCLES)
+            c.cycle(cycle++);
+        assertEquals(2, b.read(0xD000));
+    }
+
+    @Test
+    void bankSwitchedThroughTheBusIsExecutedFromTheNewBank() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        b.attach(new BankedRom(
+                0xCD, 0x00, 0x40,                   // CALL 4000
+                0xEA, 0x00, 0xD0,                   // LD (D000),A
+                0x18, 0xF8));                       // JR -8
+        ramAt(b, 0xD000, 0x00);
+        long cycle = 0;
+        while (cycle < CYCLES)
+            c.cycle(cycle++);
+        assertEquals(0x11, b.read(0xD000));
+
+        b.write(0x2000, 0x03);
+        while (cycle < 2 * CYCLES)
+            c.cycle(cycle++);
+        assertEquals(0x13, b.read(0xD000));
+    }
+
+    private static final class BankedRom extends TestComponent {
+        private final int[] bank0;
+        private int bank;
+        private int switchableReads;
+
+        BankedRom(int... bank0) {
+            this.bank0 = bank0;
+            this.bank = 1;
+        }
+
+        @Override
+        public int read(int address) {
+            if (address < bank0.length)
+                return bank0[address];
+            if (address >= 0x4000)
+                ++switchableReads;
+            switch (address - 0x4000) {
+            case 0: return 0x3E;                    // LD A,(0x10 | bank)
+            case 1: return 0x10 | bank;
+            case 2: return 0xC9;                    // RET
+            default: return NO_DATA;
+            }
+        }
+
+        @Override
+        public void write(int address, int value) {
+            if (0x2000 <= address && address < 0x4000)
+                bank = value;
+        }
+
+        @Override
+        public int bankAt(int address) {
+            return address < 0x4000 ? 0 : bank;
+        }
+
+        @Override
+        public boolean isMappedOn(int page) {
+            return page < Bus.pageOf(0x8000);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ch.epfl.javaboy.component.cpu;
+
+import ch.epfl.javaboy.Bus;
+import ch.epfl.javaboy.component.Component;
+import ch.epfl.javaboy.component.memory.Ram;
+import ch.epfl.javaboy.component.memory.RamController;
+
+public final class CpuFixtures {
+    private CpuFixtures() {}
+
+    public static void ramAt(Bus b, int startAddress, int... contents) {
+        Ram r = new Ram(contents.length);
+        for (int i = 0; i < contents.length; ++i)
+            r.write(i, contents[i]);
+        b.attach(new RamController(r, startAddress, startAddress + contents.length));
+    }
+
+    // Component of a test, ignoring the writes, whose state is never saved
+    public static abstract class TestComponent implements Component {
+        @Override
+        public void write(int address, int value) {
+        }
+
+        @Override
+        public byte[] saveState() {
+            return new byte[0];
+        }
+
+        @Override
+        public void loadState(byte[] state) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ch.epfl.javaboy.component.cpu;
+
+import static ch.epfl.javaboy.component.cpu.CpuFixtures.ramAt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.Bus;
+import ch.epfl.javaboy.Scheduler;
+import ch.epfl.javaboy.component.Clocked;
+import ch.epfl.javaboy.component.cpu.CpuFixtures.TestComponent;
+
+public final class CpuIdleLoopTest {
+    private static final int FLAG_ADDRESS = 0xD000;
+    private static final int COUNTER_ADDRESS = 0xC000;
+    private static final long FLAG_CYCLE = 20_011;
+    private static final long CYCLES = 30_000;
+
+    @Test
+    void idleLoopEndsAtTheSameCycleWhenFastForwarded() {
+        assertEquals(counterAfterStepping(), counterAfterScheduling());
+    }
+
+    @Test
+    void idleLoopIsFastForwarded() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        Flag f = new Flag();
+        b.attach(f);
+        attachCode(b);
+
+        CountingCpu counting = new CountingCpu(c);
+        Scheduler s = new Scheduler();
+        s.register(f);
+        s.register(counting);
+        s.run(0, FLAG_CYCLE);
+        assertTrue(counting.cycles < 100, "Cpu was run " + counting.cycles + " times");
+    }
+
+    private static int counterAfterStepping() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        Flag f = new Flag();
+        b.attach(f);
+        attachCode(b);
+        for (long i = 0; i < CYCLES; ++i) {
+            f.cycle(i);
+            c.cycle(i);
+        }
+        return b.read(COUNTER_ADDRESS);
+    }
+
+    private static int counterAfterScheduling() {
+        Bus b = new Bus();
+        Cpu c = new Cpu();
+        c.attachTo(b);
+        Flag f = new Flag();
+        b.attach(f);
+        attachCode(b);
+        Scheduler s = new Scheduler();
+        s.register(f);
+        s.register(c);
+        s.run(0, CYCLES / 3);
+        s.run(CYCLES / 3, CYCLES);
+        return b.read(COUNTER_ADDRESS);
+    }
+
+    private static void attachCode(Bus b) {
+        ramAt(b, 0x0000,
+                0xFA, 0x00, 0xD0,                   // LD A,(D000)
+                0xFE, 0x01,                         // CP 1
+                0x20, 0xF9,                         // JR NZ,-7
+                0x21, 0x00, 0xC0,                   // LD HL,C000
+                0x34,                               // INC (HL)
+                0x18, 0xFD);                        // JR -3
+        ramAt(b, COUNTER_ADDRESS, 0x00);
+    }
+
+    private static final class Flag extends TestComponent implements Clocked {
+        private int value = 0;
+
+        @Override
+        public void cycle(long cycle) {
+            if (cycle == FLAG_CYCLE)
+                value = 1;
+        }
+
+        @Override
+        public long nextEventCycle(long cycle) {
+            return cycle < FLAG_CYCLE ? FLAG_CYCLE : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int read(int address) {
+            return address == FLAG_ADDRESS ? value : NO_DATA;
+        }
+
+        @Override
+        public boolean isMappedOn(int page) {
+            return page == Bus.pageOf(FLAG_ADDRESS);
+        }
+    }
+
+    private static final class CountingCpu implements Clocked {
+        private final Cpu cpu;
+        private int cycles = 0;
+
+        CountingCpu(Cpu cpu) {
+            this.cpu = cpu;
+        }
+
+        @Override
+        public void cycle(long cycle) {
+            ++cycles;
+            cpu.cycle(cycle);
+        }
+
+        @Override
+        public void cycleRange(long start, long end) {
+            cpu.cycleRange(start, end);
+        }
+
+        @Override
+        public long nextEventCycle(long cycle) {
+            return cpu.nextEventCycle(cycle);
+        }
+    }
+}
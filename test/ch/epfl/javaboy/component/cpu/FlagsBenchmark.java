@@ -0,0 +1,94 @@
+package ch.epfl.javaboy.component.cpu;
+
+import java.util.Random;
+
+/**
+ * Compares the two ways of merging the flags of the ALU with those of
+ * the Cpu: four switches on the sources of the flags for each instruction
+ * (as the Cpu used to), and the masks resolved once (Cpu.combineAluFlags()).
+ * Both are copied here, on the combinations used by the Cpu
+ */
+public final class FlagsBenchmark {
+    private enum FlagSrc { FALSE, TRUE, ALU, CPU }
+
+    private static final int Z = 0x80, N = 0x40, H = 0x20, C = 0x10;
+    private static final FlagSrc[][] COMBINATIONS = {
+            { FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.CPU },       // INC
+            { FlagSrc.ALU, FlagSrc.TRUE, FlagSrc.ALU, FlagSrc.CPU },        // DEC
+            { FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.ALU },       // ADD HL
+            { FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU, FlagSrc.ALU },     // ADD SP
+            { FlagSrc.CPU, FlagSrc.TRUE, FlagSrc.TRUE, FlagSrc.CPU },       // CPL
+            { FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.ALU },   // rotations of A
+            { FlagSrc.ALU, FlagSrc.FALSE, FlagSrc.TRUE, FlagSrc.CPU },      // BIT
+            { FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.TRUE },    // SCF
+            { FlagSrc.CPU, FlagSrc.FALSE, FlagSrc.FALSE, FlagSrc.FALSE }    // CCF
+    };
+    private static final int OPERATIONS = 200_000_000;
+    private static final int ROUNDS = 6;
+    private static final int SAMPLES = 1 << 12;
+
+    private static int regF = 0;
+
+    public static void main(String[] args) {
+        int[] masks = new int[COMBINATIONS.length];
+        for (int i = 0; i < masks.length; ++i) {
+            FlagSrc[] s = COMBINATIONS[i];
+            masks[i] = mask(s[0], Z) | mask(s[1], N) | mask(s[2], H) | mask(s[3], C);
+        }
+        Random rng = new Random(2018);
+        int[] combinations = new int[SAMPLES], vfs = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; ++i) {
+            combinations[i] = rng.nextInt(COMBINATIONS.length);
+            vfs[i] = rng.nextInt(1 << Byte.SIZE);
+        }
+
+        for (int r = 0; r < ROUNDS; ++r) {
+            long start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; ++i) {
+                FlagSrc[] s = COMBINATIONS[combinations[i % SAMPLES]];
+                combineWithSwitches(vfs[i % SAMPLES], s[0], s[1], s[2], s[3]);
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; ++i)
+                combineWithMasks(vfs[i % SAMPLES], masks[combinations[i % SAMPLES]]);
+            long end = System.nanoTime();
+            System.out.printf("switches %.2f ns, masks %.2f ns by merge (F = %d)%n",
+                    (middle - start) / (double) OPERATIONS, (end - middle) / (double) OPERATIONS, regF);
+        }
+    }
+
+    private static void combineWithSwitches(int vf, FlagSrc z, FlagSrc n, FlagSrc h, FlagSrc c) {
+        int f = regF;
+        regF = flag(z, Z, vf, f) | flag(n, N, vf, f) | flag(h, H, vf, f) | flag(c, C, vf, f);
+    }
+
+    private static int flag(FlagSrc src, int flag, int vf, int f) {
+        switch (src) {
+        case TRUE:
+            return flag;
+        case ALU:
+            return vf & flag;
+        case CPU:
+            return f & flag;
+        default:
+            return 0;
+        }
+    }
+
+    private static void combineWithMasks(int vf, int mask) {
+        regF = (vf & (mask & 0xFF)) | (regF & ((mask >>> Byte.SIZE) & 0xFF)) | (mask >>> (2 * Byte.SIZE));
+    }
+
+    private static int mask(FlagSrc src, int flag) {
+        switch (src) {
+        case TRUE:
+            return flag << (2 * Byte.SIZE);
+        case ALU:
+            return flag;
+        case CPU:
+            return flag << Byte.SIZE;
+        default:
+            return 0;
+        }
+    }
+}
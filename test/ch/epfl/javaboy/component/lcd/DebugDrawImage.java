@@ -1,6 +1,7 @@
 package ch.epfl.javaboy.component.lcd;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -10,10 +11,6 @@ import java.util.zip.GZIPInputStream;
 import javax.imageio.ImageIO;
 
 public final class DebugDrawImage {
-    private static final int[] COLOR_MAP = new int[] {
-            0xFF_FF_FF, 0xD3_D3_D3, 0xA9_A9_A9, 0x00_00_00
-    };
-
     public static void main(String[] args) throws IOException {
         String f = "test/data/sml.bin.gz";
         int w = 256, h = 256;
@@ -32,9 +29,8 @@ public final class DebugDrawImage {
 
         BufferedImage i =
                 new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < h; ++y)
-            for (int x = 0; x < w; ++x)
-                i.setRGB(x, y, COLOR_MAP[li.getColor(x, y)]);
+        int[] pixels = ((DataBufferInt) i.getRaster().getDataBuffer()).getData();
+        PixelConverter.DEFAULT.toArgb(li, pixels, 0);
         ImageIO.write(i, "png", new File("sml.png"));
         System.out.println("done");
     }
@@ -26,6 +26,25 @@ class LcdImageLineTest {
         System.out.println(l);
     }
     
+    @Test
+    void mapColorsMapsEveryColorOfEveryPalette() {
+        // Colors 0, 1, 2, 3 repeated over the line
+        LcdImageLine.Builder b = new LcdImageLine.Builder(64);
+        for (int i = 0; i < 8; ++i)
+            b.setBytes(i, 0b1100_1100, 0b1010_1010);
+        LcdImageLine l = b.build();
+        for (int palette = 0; palette < 256; ++palette) {
+            LcdImageLine mapped = l.mapColors((byte) palette);
+            for (int x = 0; x < l.size(); ++x) {
+                int color = x % 4;
+                int expected = (palette >> (2 * color)) & 0b11;
+                assertEquals(expected >> 1, mapped.msb().testBit(x) ? 1 : 0);
+                assertEquals(expected & 1, mapped.lsb().testBit(x) ? 1 : 0);
+            }
+            assertEquals(l.opacity(), mapped.opacity());
+        }
+    }
+
     @Test
     void test() {
         fail("Not yet implemented");
@@ -0,0 +1,101 @@
+package ch.epfl.javaboy.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public final class LcdImageTest {
+    private static final int WIDTH = 64, HEIGHT = 4;
+
+    @Test
+    void builderFailsForInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new LcdImage.Builder(0, HEIGHT));
+        assertThrows(IllegalArgumentException.class, () -> new LcdImage.Builder(WIDTH + 8, HEIGHT));
+        assertThrows(IllegalArgumentException.class, () -> new LcdImage.Builder(WIDTH, -1));
+    }
+
+    @Test
+    void setLineFailsForLineOfInvalidWidth() {
+        LcdImage.Builder b = new LcdImage.Builder(WIDTH, HEIGHT);
+        assertThrows(IllegalArgumentException.class, () -> b.setLine(0, new LcdImageLine(2 * WIDTH)));
+    }
+
+    @Test
+    void getColorFailsForInvalidPosition() {
+        LcdImage img = new LcdImage.Builder(WIDTH, HEIGHT).build();
+        assertThrows(IndexOutOfBoundsException.class, () -> img.getColor(WIDTH, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> img.getColor(0, HEIGHT));
+        assertThrows(IndexOutOfBoundsException.class, () -> img.getColor(-1, 0));
+    }
+
+    @Test
+    void colorsAreThoseOfTheLines() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            LcdImage.Builder b = new LcdImage.Builder(WIDTH, HEIGHT);
+            LcdImageLine[] lines = new LcdImageLine[HEIGHT];
+            for (int y = 0; y < HEIGHT; ++y) {
+                LcdImageLine.Builder lb = new LcdImageLine.Builder(WIDTH);
+                for (int x = 0; x < WIDTH / 8; ++x)
+                    lb.setBytes(x, rng.nextInt(0x100), rng.nextInt(0x100));
+                lines[y] = lb.build();
+                b.setLine(y, lines[y]);
+            }
+            LcdImage img = b.build();
+            for (int y = 0; y < HEIGHT; ++y)
+                for (int x = 0; x < WIDTH; ++x) {
+                    int expected = (lines[y].msb().testBit(x) ? 2 : 0) | (lines[y].lsb().testBit(x) ? 1 : 0);
+                    assertEquals(expected, img.getColor(x, y));
+                }
+        }
+    }
+
+    @Test
+    void getLineReturnsTheIntsSet() {
+        LcdImage.Builder b = new LcdImage.Builder(WIDTH, HEIGHT);
+        b.setLine(2, new int[] { 0x8000_0001, 0 }, new int[] { 0, 0xF0F0_F0F0 });
+        LcdImage img = b.build();
+        int[] msb = new int[2], lsb = new int[2];
+        img.getLine(2, msb, lsb);
+        assertArrayEquals(new int[] { 0x8000_0001, 0 }, msb);
+        assertArrayEquals(new int[] { 0, 0xF0F0_F0F0 }, lsb);
+        assertEquals(2, img.getColor(0, 2));
+        assertEquals(2, img.getColor(31, 2));
+        assertEquals(1, img.getColor(36, 2));
+        assertEquals(0, img.getColor(32, 2));
+    }
+
+    @Test
+    void builtImagesDoNotChangeWhenBuilderIsReused() {
+        LcdImage.Builder b = new LcdImage.Builder(WIDTH, HEIGHT);
+        LcdImage blank = b.build();
+        b.setLine(0, new int[] { -1, -1 }, new int[] { -1, -1 });
+        LcdImage full = b.build();
+        assertEquals(3, full.getColor(0, 0));
+        assertNotEquals(blank, full);
+
+        b.clear();
+        assertEquals(3, full.getColor(0, 0));
+        assertEquals(blank, b.build());
+        assertEquals(blank.hashCode(), b.build().hashCode());
+    }
+
+    @Test
+    void byteArrayConversionIsReversible() {
+        Random rng = newRandom();
+        LcdImage.Builder b = new LcdImage.Builder(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT; ++y)
+            b.setLine(y, new int[] { rng.nextInt(), rng.nextInt() }, new int[] { rng.nextInt(), rng.nextInt() });
+        LcdImage img = b.build();
+        byte[] array = ImageConverter.toByteArray(img);
+        assertEquals(HEIGHT * 2 * WIDTH / 8, array.length);
+        assertEquals(img, ImageConverter.builderFromByteArray(array, WIDTH, HEIGHT).build());
+    }
+}
@@ -0,0 +1,86 @@
+package ch.epfl.javaboy.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.bits.BitVector;
+
+public final class LineCompositorTest {
+    private static final int WIDTH = LcdController.LCD_WIDTH;
+
+    @Test
+    void joinWindowFailsForInvalidStart() {
+        LineCompositor c = new LineCompositor();
+        int[] map = new int[2 * MapLineCache.MAP_WORDS];
+        assertThrows(IllegalArgumentException.class, () -> c.joinWindow(map, -1, (byte) 0));
+        assertThrows(IllegalArgumentException.class, () -> c.joinWindow(map, WIDTH, (byte) 0));
+    }
+
+    @Test
+    void composedLinesAreThoseOfLcdImageLine() {
+        Random rng = newRandom();
+        LineCompositor c = new LineCompositor();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int[] bgMap = randomMap(rng), winMap = randomMap(rng);
+            int scx = rng.nextInt(MapLineCache.MAP_SIZE), wx = rng.nextInt(WIDTH);
+            byte bgp = (byte) rng.nextInt(), obp = (byte) rng.nextInt();
+
+            LcdImageLine expected = lineOf(bgMap).extractWrapped(scx, WIDTH).mapColors(bgp);
+            c.clear();
+            c.setBackground(bgMap, scx, bgp);
+            assertSameColors(expected, c);
+
+            expected = expected.join(lineOf(winMap).extractWrapped(0, WIDTH).shift(wx).mapColors(bgp), wx);
+            c.joinWindow(winMap, wx, bgp);
+            assertSameColors(expected, c);
+
+            LcdImageLine back = new LcdImageLine(WIDTH), front = new LcdImageLine(WIDTH);
+            for (int s = 0; s < 10; ++s) {
+                boolean behind = rng.nextBoolean();
+                int row = rng.nextInt(1 << 16), x = rng.nextInt(WIDTH + 8) - 8;
+                LcdImageLine sprite = new LcdImageLine.Builder(WIDTH)
+                        .setBytes(0, row >>> 8, row & 0xFF).build().shift(-x).mapColors(obp);
+                if (behind)
+                    back = sprite.below(back);
+                else
+                    front = sprite.below(front);
+                c.addSprite(behind, row, x, obp);
+            }
+            BitVector mask = expected.opacity().or(back.opacity().not());
+            expected = back.below(expected, mask).below(front);
+            c.mergeSprites();
+            assertSameColors(expected, c);
+        }
+    }
+
+    private static void assertSameColors(LcdImageLine expected, LineCompositor c) {
+        LcdImage.Builder b = new LcdImage.Builder(WIDTH, 1);
+        c.copyTo(b, 0);
+        LcdImage img = b.build();
+        for (int x = 0; x < WIDTH; ++x) {
+            int color = (expected.msb().testBit(x) ? 2 : 0) | (expected.lsb().testBit(x) ? 1 : 0);
+            assertEquals(color, img.getColor(x, 0));
+        }
+    }
+
+    private static int[] randomMap(Random rng) {
+        int[] map = new int[2 * MapLineCache.MAP_WORDS];
+        for (int i = 0; i < map.length; ++i)
+            map[i] = rng.nextInt();
+        return map;
+    }
+
+    private static LcdImageLine lineOf(int[] map) {
+        LcdImageLine.Builder b = new LcdImageLine.Builder(MapLineCache.MAP_SIZE);
+        for (int x = 0; x < MapLineCache.MAP_TILES; ++x)
+            b.setBytes(x, (map[x / 4] >>> (x % 4 * 8)) & 0xFF,
+                    (map[MapLineCache.MAP_WORDS + x / 4] >>> (x % 4 * 8)) & 0xFF);
+        return b.build();
+    }
+}
@@ -0,0 +1,57 @@
+package ch.epfl.javaboy.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.AddressMap;
+import ch.epfl.javaboy.component.memory.Ram;
+
+public final class MapLineCacheTest {
+
+    @Test
+    void linesFollowTheWritesToMapsAndTiles() {
+        Random rng = newRandom();
+        Ram vRam = new Ram(AddressMap.VIDEO_RAM_SIZE);
+        TileCache tiles = new TileCache(vRam);
+        MapLineCache cache = new MapLineCache(vRam, tiles);
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            for (int w = 0; w < 20; ++w) {
+                int index = rng.nextInt(AddressMap.VIDEO_RAM_SIZE);
+                vRam.write(index, rng.nextInt(0x100));
+                tiles.invalidate(index);
+                cache.invalidate(index);
+            }
+            for (int l = 0; l < 10; ++l) {
+                int area = rng.nextInt(2), source = rng.nextInt(2);
+                int line = rng.nextInt(MapLineCache.MAP_SIZE);
+                assertEquals(drawnLine(vRam, area, source, line), lineOf(cache.line(area, source, line)));
+            }
+        }
+    }
+
+    private static LcdImageLine lineOf(int[] planes) {
+        LcdImageLine.Builder b = new LcdImageLine.Builder(MapLineCache.MAP_SIZE);
+        for (int x = 0; x < MapLineCache.MAP_TILES; ++x)
+            b.setBytes(x, (planes[x / 4] >>> (x % 4 * 8)) & 0xFF,
+                    (planes[MapLineCache.MAP_WORDS + x / 4] >>> (x % 4 * 8)) & 0xFF);
+        return b.build();
+    }
+
+    private static LcdImageLine drawnLine(Ram vRam, int area, int source, int line) {
+        LcdImageLine.Builder b = new LcdImageLine.Builder(MapLineCache.MAP_SIZE);
+        for (int x = 0; x < MapLineCache.MAP_TILES; ++x) {
+            int id = vRam.read(AddressMap.BG_DISPLAY_DATA[area] - AddressMap.VIDEO_RAM_START
+                    + line / 8 * MapLineCache.MAP_TILES + x);
+            int address = (source == 0 && id < 0x80 ? 0x9000 : 0x8000) + id * 16 + line % 8 * 2;
+            int index = address - AddressMap.VIDEO_RAM_START;
+            b.setBytes(x, Integer.reverse(vRam.read(index + 1)) >>> 24,
+                    Integer.reverse(vRam.read(index)) >>> 24);
+        }
+        return b.build();
+    }
+}
@@ -0,0 +1,88 @@
+package ch.epfl.javaboy.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public final class PixelConverterTest {
+    private static final int WIDTH = 96, HEIGHT = 5;
+
+    @Test
+    void constructorFailsForInvalidPalette() {
+        assertThrows(IllegalArgumentException.class, () -> new PixelConverter(1, 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> new PixelConverter(1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void conversionsFailForTooSmallArrays() {
+        LcdImage img = new LcdImage.Builder(WIDTH, HEIGHT).build();
+        PixelConverter c = PixelConverter.DEFAULT;
+        assertThrows(IndexOutOfBoundsException.class, () -> c.toArgb(img, new int[WIDTH * HEIGHT], 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.toArgb(img, 0, new int[WIDTH - 1], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.toArgb(img, HEIGHT, new int[WIDTH], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.toRgb(img, new byte[3 * WIDTH * HEIGHT - 1], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.toGray(img, new byte[WIDTH * HEIGHT], -1));
+    }
+
+    @Test
+    void pixelsAreThoseOfThePalette() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            PixelConverter c = new PixelConverter(rng.nextInt(), rng.nextInt(), rng.nextInt(), rng.nextInt());
+            LcdImage img = randomImage(rng);
+            int offset = rng.nextInt(10);
+
+            int[] argb = new int[offset + WIDTH * HEIGHT];
+            byte[] rgb = new byte[offset + 3 * WIDTH * HEIGHT];
+            byte[] gray = new byte[offset + WIDTH * HEIGHT];
+            int[] line = new int[offset + WIDTH];
+            c.toArgb(img, argb, offset);
+            c.toRgb(img, rgb, offset);
+            c.toGray(img, gray, offset);
+            for (int y = 0; y < HEIGHT; ++y) {
+                c.toArgb(img, y, line, offset);
+                for (int x = 0; x < WIDTH; ++x) {
+                    int color = c.color(img.getColor(x, y));
+                    int r = (color >>> 16) & 0xFF, g = (color >>> 8) & 0xFF, b = color & 0xFF;
+                    int p = y * WIDTH + x;
+                    assertEquals(color, argb[offset + p]);
+                    assertEquals(color, line[offset + x]);
+                    assertEquals((byte) r, rgb[offset + 3 * p]);
+                    assertEquals((byte) g, rgb[offset + 3 * p + 1]);
+                    assertEquals((byte) b, rgb[offset + 3 * p + 2]);
+                    assertEquals((byte) Math.round(0.299 * r + 0.587 * g + 0.114 * b), gray[offset + p]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void defaultPaletteGoesFromWhiteToBlack() {
+        LcdImage.Builder b = new LcdImage.Builder(Integer.SIZE, 1);
+        b.setLine(0, new int[] { 0b1100 }, new int[] { 0b1010 });
+        byte[] gray = new byte[Integer.SIZE];
+        PixelConverter.DEFAULT.toGray(b.build(), gray, 0);
+        assertEquals((byte) 0xFF, gray[0]);
+        assertEquals((byte) 0xD3, gray[1]);
+        assertEquals((byte) 0xA9, gray[2]);
+        assertEquals((byte) 0x00, gray[3]);
+    }
+
+    private static LcdImage randomImage(Random rng) {
+        LcdImage.Builder b = new LcdImage.Builder(WIDTH, HEIGHT);
+        int[] msb = new int[WIDTH / Integer.SIZE], lsb = new int[WIDTH / Integer.SIZE];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int w = 0; w < msb.length; ++w) {
+                msb[w] = rng.nextInt();
+                lsb[w] = rng.nextInt();
+            }
+            b.setLine(y, msb, lsb);
+        }
+        return b.build();
+    }
+}
@@ -0,0 +1,59 @@
+package ch.epfl.javaboy.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.AddressMap;
+import ch.epfl.javaboy.component.memory.Ram;
+
+public final class SpriteIndexTest {
+
+    @Test
+    void constructorFailsForTooSmallOam() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SpriteIndex(new Ram(SpriteIndex.SPRITES_COUNT * 4 - 1)));
+    }
+
+    @Test
+    void spritesOnLineFollowTheWritesToTheOam() {
+        Random rng = newRandom();
+        Ram oam = new Ram(AddressMap.OAM_RAM_SIZE);
+        SpriteIndex index = new SpriteIndex(oam);
+        int[] sprites = new int[10];
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            for (int w = 0; w < 10; ++w) {
+                int address = rng.nextInt(AddressMap.OAM_RAM_SIZE);
+                // Keeps the sprites close to the screen, to have many on each line
+                oam.write(address, rng.nextInt(0x40) + 0x10);
+                index.invalidate(address);
+            }
+            int height = rng.nextBoolean() ? 8 : 16;
+            for (int line = 0; line < LcdController.LCD_HEIGHT; ++line) {
+                int count = index.spritesOnLine(line, height, sprites);
+                assertArrayEquals(scannedSprites(oam, line, height), Arrays.copyOf(sprites, count));
+            }
+        }
+    }
+
+    private static int[] scannedSprites(Ram oam, int line, int height) {
+        int[] packed = new int[10];
+        int count = 0;
+        for (int i = 0; i < SpriteIndex.SPRITES_COUNT && count < packed.length; ++i) {
+            int y = oam.read(4 * i) - 16;
+            if (y <= line && line < y + height)
+                packed[count++] = (oam.read(4 * i + 1) << 8) | i;
+        }
+        Arrays.sort(packed, 0, count);
+        int[] selected = new int[count];
+        for (int i = 0; i < count; ++i)
+            selected[i] = packed[i] & 0xFF;
+        return selected;
+    }
+}
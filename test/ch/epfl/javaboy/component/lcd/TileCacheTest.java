@@ -0,0 +1,46 @@
+package ch.epfl.javaboy.component.lcd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javaboy.bits.Bits;
+import ch.epfl.javaboy.component.memory.Ram;
+
+public final class TileCacheTest {
+
+    @Test
+    void constructorFailsForTooSmallRam() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TileCache(new Ram(TileCache.TILES_SIZE - 1)));
+    }
+
+    @Test
+    void rowsAreReversedAndFlippedRowsAreNot() {
+        Ram vRam = new Ram(TileCache.TILES_SIZE);
+        vRam.write(2 * 17, 0b1100_0001);
+        vRam.write(2 * 17 + 1, 0b0000_0111);
+        TileCache tiles = new TileCache(vRam);
+        assertEquals(Bits.make16(0b1110_0000, 0b1000_0011), tiles.row(17));
+        assertEquals(Bits.make16(0b0000_0111, 0b1100_0001), tiles.flippedRow(17));
+    }
+
+    @Test
+    void rowsFollowTheInvalidatedWrites() {
+        Ram vRam = new Ram(TileCache.TILES_SIZE);
+        TileCache tiles = new TileCache(vRam);
+        for (int row = 0; row < TileCache.TILES_SIZE / 2; ++row)
+            assertEquals(0, tiles.row(row));
+
+        vRam.write(TileCache.TILES_SIZE - 1, 0xF0);
+        assertEquals(0, tiles.flippedRow(TileCache.TILES_SIZE / 2 - 1));
+        tiles.invalidate(TileCache.TILES_SIZE - 1);
+        assertEquals(0xF000, tiles.flippedRow(TileCache.TILES_SIZE / 2 - 1));
+        assertEquals(0x0F00, tiles.row(TileCache.TILES_SIZE / 2 - 1));
+
+        vRam.write(0, 0x01);
+        tiles.invalidateAll();
+        assertEquals(0x0080, tiles.row(0));
+    }
+}